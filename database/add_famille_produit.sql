@@ -0,0 +1,59 @@
+-- Script pour ajouter la famille des produits (0 = général, 1 = tabac)
+-- La famille est déduite du nom de la catégorie (tabac, puff, terrea, cigarette).
+-- Les statistiques du tabac filtrent sur cette colonne indexée au lieu de
+-- chercher ces mots dans produits.categorie à chaque requête.
+-- L'application la maintient à la création et à la modification des produits
+-- et des catégories (model.FamilleProduit).
+
+USE 2market;
+
+-- Ajouter la colonne famille aux produits si elle n'existe pas
+SET @col_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+    WHERE TABLE_SCHEMA = '2market' 
+    AND TABLE_NAME = 'produits' 
+    AND COLUMN_NAME = 'famille');
+
+SET @sql = IF(@col_exists = 0,
+    'ALTER TABLE produits ADD COLUMN famille TINYINT NOT NULL DEFAULT 0, ADD INDEX idx_produits_famille (famille)',
+    'SELECT "Column famille already exists" AS message');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Ajouter la colonne famille aux catégories si la table existe
+SET @col_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+    WHERE TABLE_SCHEMA = '2market' 
+    AND TABLE_NAME = 'categories' 
+    AND COLUMN_NAME = 'famille');
+SET @table_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES 
+    WHERE TABLE_SCHEMA = '2market' 
+    AND TABLE_NAME = 'categories');
+
+SET @sql = IF(@table_exists = 1 AND @col_exists = 0,
+    'ALTER TABLE categories ADD COLUMN famille TINYINT NOT NULL DEFAULT 0',
+    'SELECT "Column categories.famille already exists or no categories table" AS message');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Classer les produits existants d'après leur catégorie
+UPDATE produits
+SET famille = IF(LOWER(categorie) LIKE '%tabac%'
+                 OR LOWER(categorie) LIKE '%puff%'
+                 OR LOWER(categorie) LIKE '%terrea%'
+                 OR LOWER(categorie) LIKE '%cigarette%', 1, 0);
+
+-- Classer les catégories existantes (ignoré sans table categories)
+SET @sql = IF(@table_exists = 1,
+    'UPDATE categories SET famille = IF(LOWER(nom) LIKE ''%tabac%'' OR LOWER(nom) LIKE ''%puff%'' OR LOWER(nom) LIKE ''%terrea%'' OR LOWER(nom) LIKE ''%cigarette%'', 1, 0)',
+    'SELECT "No categories table" AS message');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Afficher le résultat
+SELECT CONCAT('Colonne famille ajoutée (', COUNT(*), ' produits de tabac)') AS status
+FROM produits WHERE famille = 1;
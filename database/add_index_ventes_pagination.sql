@@ -0,0 +1,39 @@
+-- Script pour vérifier les index utilisés par la pagination des ventes
+-- VenteDAO.findPage / parcourir trient par (date_vente, id) : l'index sur
+-- date_vente suffit, InnoDB y ajoutant implicitement la clé primaire (id).
+-- findPageByUtilisateur filtre en plus sur id_utilisateur : index composite
+-- (id_utilisateur, date_vente) pour lire une page sans trier tout l'historique.
+
+USE 2market;
+
+-- Index sur date_vente (idx_date_vente dans le schéma de production)
+SET @idx_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE TABLE_SCHEMA = '2market'
+    AND TABLE_NAME = 'ventes'
+    AND COLUMN_NAME = 'date_vente'
+    AND SEQ_IN_INDEX = 1);
+
+SET @sql = IF(@idx_exists = 0,
+    'ALTER TABLE ventes ADD INDEX idx_date_vente (date_vente)',
+    'SELECT "Index on date_vente already exists" AS message');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Index composite pour les pages d'un caissier
+SET @idx_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE TABLE_SCHEMA = '2market'
+    AND TABLE_NAME = 'ventes'
+    AND INDEX_NAME = 'idx_utilisateur_date_vente');
+
+SET @sql = IF(@idx_exists = 0,
+    'ALTER TABLE ventes ADD INDEX idx_utilisateur_date_vente (id_utilisateur, date_vente)',
+    'SELECT "Index idx_utilisateur_date_vente already exists" AS message');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Afficher le résultat
+SELECT 'Index de pagination des ventes vérifiés' AS status;
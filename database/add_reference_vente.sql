@@ -0,0 +1,22 @@
+-- Script pour ajouter la référence (clé d'idempotence) aux ventes
+-- Chaque vente soumise par la caisse reçoit une référence unique : une vente
+-- resoumise après une erreur réseau n'est jamais enregistrée deux fois.
+
+USE 2market;
+
+-- Ajouter la colonne reference si elle n'existe pas
+SET @col_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+    WHERE TABLE_SCHEMA = '2market' 
+    AND TABLE_NAME = 'ventes' 
+    AND COLUMN_NAME = 'reference');
+
+SET @sql = IF(@col_exists = 0,
+    'ALTER TABLE ventes ADD COLUMN reference VARCHAR(36) NULL AFTER id_utilisateur, ADD UNIQUE INDEX idx_reference (reference)',
+    'SELECT "Column reference already exists" AS message');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Afficher le résultat
+SELECT 'Colonne reference ajoutée avec succès' AS status;
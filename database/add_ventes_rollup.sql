@@ -0,0 +1,43 @@
+-- Script pour ajouter la table d'agrégats journaliers des ventes
+-- Une ligne par (jour, produit, catégorie, caissier) : les statistiques du tableau
+-- de bord lisent cette table au lieu de parcourir tout l'historique de detailsvente.
+-- L'application la met à jour dans la transaction de chaque vente.
+
+USE 2market;
+
+-- Créer la table des agrégats
+CREATE TABLE IF NOT EXISTS ventes_rollup_jour (
+    jour DATE NOT NULL,
+    id_produit INT NOT NULL,
+    categorie VARCHAR(100) NOT NULL,
+    id_utilisateur INT NOT NULL,
+    quantite INT NOT NULL DEFAULT 0,
+    ca DECIMAL(14,2) NOT NULL DEFAULT 0,
+    cout DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (jour, id_produit, categorie, id_utilisateur),
+    INDEX idx_rollup_produit (id_produit),
+    INDEX idx_rollup_categorie (categorie)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Reconstruire les agrégats à partir de l'historique existant
+START TRANSACTION;
+
+DELETE FROM ventes_rollup_jour;
+
+INSERT INTO ventes_rollup_jour (jour, id_produit, categorie, id_utilisateur, quantite, ca, cout)
+SELECT DATE(v.date_vente) AS jour,
+       dv.id_produit,
+       COALESCE(NULLIF(p.categorie, ''), 'Divers') AS categorie,
+       v.id_utilisateur,
+       SUM(dv.quantite),
+       SUM(dv.prix_vente_unitaire * dv.quantite),
+       SUM(dv.prix_achat_unitaire * dv.quantite)
+FROM detailsvente dv
+JOIN ventes v ON v.id = dv.id_vente
+LEFT JOIN produits p ON p.id = dv.id_produit
+GROUP BY jour, dv.id_produit, categorie, v.id_utilisateur;
+
+COMMIT;
+
+-- Afficher le résultat
+SELECT CONCAT('Table ventes_rollup_jour créée (', COUNT(*), ' lignes)') AS status FROM ventes_rollup_jour;
@@ -1,8 +1,11 @@
 package app;
 
+import dao.DBConnector;
+import dao.SaleSubmissionQueue;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import util.FXMLUtils;
+import util.StartupTimeline;
 
 /**
  * La classe principale qui démarre l'application
@@ -11,6 +14,7 @@ public class MainApp extends Application {
     
     @Override
     public void start(Stage primaryStage) {
+        StartupTimeline.marquer("JavaFX démarré");
         try {
             // Charger la vue de connexion
             FXMLUtils.changeScene(primaryStage, "/view/Connexion.fxml", "Connexion - 2M Market");
@@ -18,13 +22,25 @@ public class MainApp extends Application {
             primaryStage.setMinWidth(600);
             primaryStage.setMinHeight(400);
             primaryStage.show();
+            StartupTimeline.marquer("connexion affichée");
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("Erreur lors du démarrage de l'application: " + e.getMessage());
         }
+        
+        // Pool, catalogue, vues de caisse et BCrypt préparés en arrière-plan pendant la saisie du mot de passe
+        new StartupOrchestrator().lancer();
+    }
+    
+    @Override
+    public void stop() {
+        // Laisser les ventes en file s'enregistrer avant de fermer le pool
+        SaleSubmissionQueue.getInstance().arreter(10_000);
+        DBConnector.closeConnection();
     }
     
     public static void main(String[] args) {
+        StartupTimeline.marquer("lancement");
         launch(args);
     }
 }
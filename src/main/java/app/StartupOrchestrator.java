@@ -0,0 +1,78 @@
+package app;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dao.DBConnector;
+import dao.ProductCatalog;
+import dao.SaleSubmissionQueue;
+import dao.SchemaRegistry;
+import util.Config;
+import util.SecurityUtil;
+import util.StartupTimeline;
+import util.ViewRegistry;
+
+/**
+ * Préchauffage de l'application pendant l'affichage de la connexion
+ *
+ * Les étapes coûteuses du premier passage en caisse sont lancées en parallèle
+ * sur des threads d'arrière-plan, dès que la fenêtre de connexion est affichée :
+ * - ouverture du pool (chargement du pilote MySQL, première connexion), puis
+ *   lecture du schéma, puis catalogue des produits et rejeu du journal des ventes ;
+ * - préchargement des vues de la caisse (ViewRegistry) ;
+ * - préchauffage de BCrypt (chargement des classes et compilation JIT), pour que
+ *   la première vérification de mot de passe ne paie pas ce coût.
+ *
+ * Chaque étape est consignée dans la chronologie du démarrage (StartupTimeline).
+ * Une étape en échec est signalée sans empêcher les autres.
+ */
+public class StartupOrchestrator {
+
+    private final AtomicInteger compteur = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(Config.DEMARRAGE_THREADS, r -> {
+        Thread t = new Thread(r, "demarrage-" + compteur.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Lance toutes les étapes en arrière-plan et rend la main immédiatement
+     * @return Futur terminé quand toutes les étapes sont finies (réussies ou non)
+     */
+    public CompletableFuture<Void> lancer() {
+        CompletableFuture<Void> base = etape("pool de connexions ouvert", () -> DBConnector.getPool().warmUp())
+                .thenCompose(v -> etape("schéma lu", SchemaRegistry::refresh));
+        CompletableFuture<Void> catalogue = base.thenCompose(v -> etape("catalogue chargé", () -> {
+            if (!ProductCatalog.getInstance().charger()) {
+                throw new IllegalStateException("catalogue indisponible");
+            }
+        }));
+        CompletableFuture<Void> journal = base.thenCompose(v -> etape("file des ventes démarrée",
+                SaleSubmissionQueue::getInstance));
+        CompletableFuture<Void> vues = etape("vues de caisse préchargées",
+                ViewRegistry::prechargerEnArrierePlan);
+        CompletableFuture<Void> bcrypt = etape("BCrypt préchauffé",
+                () -> SecurityUtil.hashPassword("prechauffage"));
+
+        return CompletableFuture.allOf(catalogue, journal, vues, bcrypt).whenComplete((v, e) -> {
+            StartupTimeline.marquer("préchauffage terminé");
+            executor.shutdown();
+        });
+    }
+
+    /**
+     * Exécute une étape sur le pool de démarrage et la consigne; une erreur est affichée, pas propagée
+     */
+    private CompletableFuture<Void> etape(String nom, Runnable travail) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                travail.run();
+                StartupTimeline.marquer(nom);
+            } catch (RuntimeException e) {
+                System.err.println("Erreur au démarrage (" + nom + "): " + e.getMessage());
+            }
+        }, executor);
+    }
+}
@@ -3,9 +3,6 @@ package controller;
 import java.io.IOException;
 
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -97,12 +94,8 @@ public class AdminDashboardController {
     @FXML
     private void handleGestionVentes() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/GestionVentes.fxml"));
-            Parent root = loader.load();
-
             Stage stage = (Stage) gestionVentesButton.getScene().getWindow();
-            stage.setScene(new Scene(root));
-            stage.setTitle("Gestion des Ventes");
+            FXMLUtils.changeScene(stage, "/view/GestionVentes.fxml", "Gestion des Ventes");
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -11,6 +11,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.VBox;
 import model.Produit;
+import util.BarcodeScanInput;
 
 /**
  * Contrôleur pour l'ajout rapide de stock via smartphone
@@ -45,6 +46,7 @@ public class AjoutStockMobileController {
     private ProduitDAO produitDAO;
     private Produit produitActuel;
     private ObservableList<String> historique;
+    private BarcodeScanInput scanInput;
     
     @FXML
     private void initialize() {
@@ -54,28 +56,16 @@ public class AjoutStockMobileController {
         // Focus automatique sur le champ code-barres
         codeBarreField.requestFocus();
         
-        // Configuration du champ code-barres pour scanner automatique
+        // Scans de la douchette : résolus en arrière-plan, un résultat par scan
+        scanInput = BarcodeScanInput.installer(codeBarreField, produitDAO::findByCodeBarre, this::afficherResultat);
+        
+        // Saisie manuelle validée par Entrée
         codeBarreField.setOnKeyPressed(e -> {
             if (e.getCode() == KeyCode.ENTER) {
                 rechercherProduit();
             }
         });
         
-        // Auto-recherche après saisie (pour scanner)
-        codeBarreField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null && newVal.length() >= 8) {
-                // Délai pour laisser le scanner terminer
-                javafx.application.Platform.runLater(() -> {
-                    try {
-                        Thread.sleep(200);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                    }
-                    rechercherProduit();
-                });
-            }
-        });
-        
         // Configuration des boutons +/- pour tactile
         configurerBoutonsTactiles();
         
@@ -177,12 +167,18 @@ public class AjoutStockMobileController {
             return;
         }
         
-        produitActuel = produitDAO.findByCodeBarre(codeBarre);
+        scanInput.soumettre(codeBarre);
+    }
+    
+    /**
+     * Affiche le produit correspondant à un code scanné ou saisi
+     */
+    private void afficherResultat(String codeBarre, Produit produit) {
+        produitActuel = produit;
         
         if (produitActuel != null) {
             afficherInfosProduit(produitActuel);
             quantiteField.setText("1");
-            quantiteField.requestFocus();
         } else {
             masquerInfosProduit();
             produitNomLabel.setText("❌ Produit introuvable");
@@ -275,10 +271,10 @@ public class AjoutStockMobileController {
                 return;
             }
             
-            // Mettre à jour le stock
-            produitActuel.setQuantiteStock(produitActuel.getQuantiteStock() + quantite);
-            
-            if (produitDAO.update(produitActuel)) {
+            // Mettre à jour le stock (incrément atomique en base)
+            if (produitDAO.ajouterStock(produitActuel.getId(), quantite)) {
+                produitActuel.setQuantiteStock(produitActuel.getQuantiteStock() + quantite);
+                
                 // Ajouter à l'historique
                 String historiqueItem = String.format(
                     "✅ %s: +%d %s (Stock: %d %s)",
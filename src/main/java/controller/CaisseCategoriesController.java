@@ -4,8 +4,8 @@ import java.io.IOException;
 import java.util.List;
 
 import dao.ProduitDAO;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -15,12 +15,17 @@ import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import model.DetailVente;
+import model.Panier;
 import model.Produit;
+import util.BackgroundLoader;
+import util.BarcodeScanInput;
+import util.ViewLifecycle;
+import util.ViewRegistry;
 
 /**
  * Contrôleur pour l'interface de sélection de catégories
  */
-public class CaisseCategoriesController {
+public class CaisseCategoriesController implements ViewLifecycle {
 
     // ============================================
     // CONSTANTES DE STYLE
@@ -89,6 +94,11 @@ public class CaisseCategoriesController {
     // ============================================
     private ProduitDAO produitDAO;
     private Produit produitTrouve = null;
+    private String rechercheProduitTrouve = null;
+    private List<String> categoriesAffichees = null;
+
+    // Compteur du panier tenu à jour tant que la vue est affichée
+    private final ListChangeListener<DetailVente> ecouteurPanier = c -> updatePanierCount();
 
     // ============================================
     // INITIALISATION
@@ -100,22 +110,38 @@ public class CaisseCategoriesController {
         rechercheField.requestFocus();
 
         configurerRecherche();
+    }
+
+    /**
+     * À chaque affichage (vue conservée en cache) : champs remis à zéro et catégories rafraîchies
+     */
+    @Override
+    public void onShow() {
+        CategorieProduitsController.getPanierGlobal().addListener(ecouteurPanier);
         chargerStyles();
+        reinitialiserRecherche();
         updatePanierCount();
-        ecouterChangementsPanier();
         chargerCategories();
     }
 
+    @Override
+    public void onHide() {
+        CategorieProduitsController.getPanierGlobal().removeListener(ecouteurPanier);
+    }
+
     /**
-     * Configure le listener de recherche
+     * Configure la recherche : scans de la douchette et saisie manuelle
      */
     private void configurerRecherche() {
-        rechercheField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null && !newVal.trim().isEmpty()) {
-                rechercherProduit(newVal.trim());
+        BarcodeScanInput scanInput = BarcodeScanInput.installer(
+                rechercheField, produitDAO::findByCodeBarre, this::ajouterProduitScanne);
+        scanInput.setSurSaisie(texte -> {
+            if (!texte.isEmpty()) {
+                rechercherProduit(texte);
             } else {
                 produitInfoLabel.setText("");
                 produitTrouve = null;
+                rechercheProduitTrouve = null;
             }
         });
     }
@@ -124,33 +150,18 @@ public class CaisseCategoriesController {
      * Charge les styles CSS
      */
     private void chargerStyles() {
-        javafx.application.Platform.runLater(() -> {
-            if (panierButton != null && panierButton.getScene() != null) {
-                javafx.scene.Parent root = panierButton.getScene().getRoot();
-                if (root != null) {
-                    try {
-                        String cssUrl = getClass().getResource("/styles/caisse.css").toExternalForm();
-                        if (!root.getStylesheets().contains(cssUrl)) {
-                            root.getStylesheets().add(cssUrl);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Impossible de charger le CSS: " + e.getMessage());
+        if (panierButton != null && panierButton.getScene() != null) {
+            javafx.scene.Parent root = panierButton.getScene().getRoot();
+            if (root != null) {
+                try {
+                    String cssUrl = getClass().getResource("/styles/caisse.css").toExternalForm();
+                    if (!root.getStylesheets().contains(cssUrl)) {
+                        root.getStylesheets().add(cssUrl);
                     }
+                } catch (Exception e) {
+                    System.err.println("Impossible de charger le CSS: " + e.getMessage());
                 }
             }
-        });
-    }
-
-    /**
-     * Écoute les changements du panier global
-     */
-    private void ecouterChangementsPanier() {
-        if (CategorieProduitsController.getPanierGlobal() != null) {
-            CategorieProduitsController.getPanierGlobal().addListener(
-                    (javafx.collections.ListChangeListener.Change<? extends DetailVente> c) -> {
-                        updatePanierCount();
-                    }
-            );
         }
     }
 
@@ -162,16 +173,31 @@ public class CaisseCategoriesController {
      * Charge et affiche toutes les catégories depuis la base de données
      */
     private void chargerCategories() {
-        try {
-            // Configuration du conteneur
-            categoriesContainer.getChildren().clear();
-            categoriesContainer.setHgap(20);
-            categoriesContainer.setVgap(20);
-            categoriesContainer.setPadding(new Insets(20));
-
-            // Récupération des catégories depuis la base de données
-            List<String> categories = produitDAO.findAllCategories();
+        // Configuration du conteneur
+        categoriesContainer.setHgap(20);
+        categoriesContainer.setVgap(20);
+        categoriesContainer.setPadding(new Insets(20));
+
+        // Récupération des catégories en arrière-plan
+        BackgroundLoader.charger(categoriesContainer, "categories", produitDAO::findAllCategories,
+                this::afficherCategories, e -> {
+                    categoriesContainer.getChildren().clear();
+                    categoriesAffichees = null;
+                    afficherErreurChargement();
+                });
+    }
 
+    /**
+     * Affiche un bouton par catégorie
+     */
+    private void afficherCategories(List<String> categories) {
+        // Boutons déjà à jour (retour sur la vue) : rien à reconstruire
+        if (categories != null && categories.equals(categoriesAffichees)) {
+            return;
+        }
+        categoriesContainer.getChildren().clear();
+        categoriesAffichees = null;
+        try {
             // Vérifier si des catégories existent
             if (categories == null || categories.isEmpty()) {
                 afficherMessageAucuneCategorie();
@@ -186,6 +212,7 @@ public class CaisseCategoriesController {
                 }
             }
 
+            categoriesAffichees = categories;
             System.out.println("✓ " + categories.size() + " catégorie(s) chargée(s)");
 
         } catch (Exception e) {
@@ -324,15 +351,11 @@ public class CaisseCategoriesController {
      */
     private void ouvrirCategorie(String categorie) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/CategorieProduits.fxml"));
-            javafx.scene.Parent root = loader.load();
-
-            CategorieProduitsController controller = loader.getController();
+            CategorieProduitsController controller = ViewRegistry.getControleur("/view/CategorieProduits.fxml");
             controller.setCategorie(categorie);
 
             Stage stage = (Stage) panierButton.getScene().getWindow();
-            stage.getScene().setRoot(root);
-            stage.setTitle("Produits - " + categorie);
+            util.FXMLUtils.changeScene(stage, "/view/CategorieProduits.fxml", "Produits - " + categorie);
         } catch (IOException e) {
             System.err.println("Erreur lors du chargement de la page catégorie: " + e.getMessage());
             e.printStackTrace();
@@ -350,20 +373,22 @@ public class CaisseCategoriesController {
      */
     private void rechercherProduit(String recherche) {
         produitTrouve = produitDAO.rechercherProduit(recherche);
+        rechercheProduitTrouve = recherche;
+
+        // Pas de correspondance exacte sur un nom : proposer le produit le plus pertinent
+        // dont le nom commence par la saisie (jamais un produit approché par faute de frappe)
+        if (produitTrouve == null && !estCodeBarre(recherche)) {
+            List<Produit> suggestions = produitDAO.rechercherParPrefixes(recherche, 1);
+            produitTrouve = suggestions.isEmpty() ? null : suggestions.get(0);
+        }
 
         if (produitTrouve != null) {
             produitInfoLabel.setText("✓ " + produitTrouve.getNom() + " - " +
-                    String.format("%.2f €", produitTrouve.getPrixVenteDefaut()) +
+                    produitTrouve.getPrixVenteDefaut().formater() + " €" +
                     " (Stock: " + produitTrouve.getQuantiteStock() + ")");
             produitInfoLabel.setStyle("-fx-text-fill: #4CAF50; -fx-font-weight: bold; -fx-font-size: 13px;");
-
-            // Ajout automatique pour code-barres
-            if (estCodeBarre(recherche)) {
-                ajouterAutomatiquementApresDelai();
-            }
         } else {
-            produitInfoLabel.setText("❌ Produit introuvable");
-            produitInfoLabel.setStyle("-fx-text-fill: #f44336; -fx-font-weight: bold; -fx-font-size: 13px;");
+            afficherErreurRecherche("❌ Produit introuvable");
         }
     }
 
@@ -375,17 +400,43 @@ public class CaisseCategoriesController {
     }
 
     /**
-     * Ajoute automatiquement le produit après un court délai
+     * Ajoute directement au panier le produit d'un scan
+     *
+     * Les erreurs s'affichent sous le champ plutôt qu'en popup, et le champ n'est
+     * pas vidé : il peut déjà contenir le début du scan suivant.
      */
-    private void ajouterAutomatiquementApresDelai() {
-        javafx.application.Platform.runLater(() -> {
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            handleAjouterRapide();
-        });
+    private void ajouterProduitScanne(String codeBarre, Produit produit) {
+        if (produit == null) {
+            afficherErreurRecherche("❌ Code-barres inconnu: " + codeBarre);
+            return;
+        }
+        if (produit.getQuantiteStock() <= 0) {
+            afficherErreurRecherche("❌ " + produit.getNom() + " n'est plus en stock");
+            return;
+        }
+
+        int quantite = obtenirQuantite();
+        if (quantite <= 0) {
+            quantite = 1;
+        }
+        DetailVente detailExistant = CategorieProduitsController.getPanier().trouver(produit.getId());
+        int dejaAuPanier = detailExistant != null ? detailExistant.getQuantite() : 0;
+        if (dejaAuPanier + quantite > produit.getQuantiteStock()) {
+            afficherErreurRecherche("❌ Stock insuffisant pour " + produit.getNom()
+                    + " (disponible: " + produit.getQuantiteStock() + ")");
+            return;
+        }
+
+        CategorieProduitsController.getPanier().ajouter(produit, quantite);
+        quantiteField.setText("1");
+        produitInfoLabel.setText("✓ " + produit.getNom() + " ajouté (x" + quantite + ")");
+        produitInfoLabel.setStyle("-fx-text-fill: #4CAF50; -fx-font-weight: bold; -fx-font-size: 13px;");
+        updatePanierCount();
+    }
+
+    private void afficherErreurRecherche(String message) {
+        produitInfoLabel.setText(message);
+        produitInfoLabel.setStyle("-fx-text-fill: #f44336; -fx-font-weight: bold; -fx-font-size: 13px;");
     }
 
     @FXML
@@ -403,9 +454,10 @@ public class CaisseCategoriesController {
             return;
         }
 
-        // Si produit déjà trouvé, utiliser celui-ci, sinon rechercher
-        if (produitTrouve == null) {
+        // Si produit déjà trouvé pour ce texte, utiliser celui-ci, sinon rechercher
+        if (produitTrouve == null || !recherche.equals(rechercheProduitTrouve)) {
             produitTrouve = produitDAO.rechercherProduit(recherche);
+            rechercheProduitTrouve = recherche;
         }
 
         if (produitTrouve == null) {
@@ -454,29 +506,16 @@ public class CaisseCategoriesController {
      * Ajoute un produit au panier
      */
     private void ajouterAuPanier(int quantite) {
-        javafx.collections.ObservableList<DetailVente> panier = CategorieProduitsController.getPanierGlobal();
-        DetailVente detailExistant = panier.stream()
-                .filter(d -> d.getProduitId() == produitTrouve.getId())
-                .findFirst()
-                .orElse(null);
-
-        if (detailExistant != null) {
-            int nouvelleQuantite = detailExistant.getQuantite() + quantite;
-            if (nouvelleQuantite > produitTrouve.getQuantiteStock()) {
-                showAlert(Alert.AlertType.WARNING, "Stock insuffisant",
-                        "Quantité totale demandée dépasse le stock disponible.");
-                return;
-            }
-            detailExistant.setQuantite(nouvelleQuantite);
-        } else {
-            DetailVente detail = new DetailVente();
-            detail.setProduitId(produitTrouve.getId());
-            detail.setQuantite(quantite);
-            detail.setPrixVenteUnitaire(produitTrouve.getPrixVenteDefaut());
-            detail.setPrixAchatUnitaire(produitTrouve.getPrixAchatActuel());
-            detail.setProduit(produitTrouve);
-            panier.add(detail);
+        Panier panier = CategorieProduitsController.getPanier();
+        DetailVente detailExistant = panier.trouver(produitTrouve.getId());
+
+        if (detailExistant != null
+                && detailExistant.getQuantite() + quantite > produitTrouve.getQuantiteStock()) {
+            showAlert(Alert.AlertType.WARNING, "Stock insuffisant",
+                    "Quantité totale demandée dépasse le stock disponible.");
+            return;
         }
+        panier.ajouter(produitTrouve, quantite);
 
         // Ajout automatique sans popup
         reinitialiserRecherche();
@@ -491,6 +530,7 @@ public class CaisseCategoriesController {
         quantiteField.setText("1");
         produitInfoLabel.setText("");
         produitTrouve = null;
+        rechercheProduitTrouve = null;
         rechercheField.requestFocus();
     }
 
@@ -12,12 +12,15 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import model.DetailVente;
+import model.Panier;
 import model.Produit;
+import util.BackgroundLoader;
+import util.ViewLifecycle;
 
 /**
  * Contrôleur pour afficher les produits d'une catégorie
  */
-public class CategorieProduitsController {
+public class CategorieProduitsController implements ViewLifecycle {
 
     // ============================================
     // CONSTANTES DE STYLE
@@ -88,7 +91,9 @@ public class CategorieProduitsController {
     // ============================================
     private ProduitDAO produitDAO;
     private String categorie;
-    private static javafx.collections.ObservableList<DetailVente> panierGlobal;
+    // Créé d'emblée : les vues de caisse peuvent être préchargées hors du thread JavaFX
+    private static final Panier panier = new Panier();
+    private static final javafx.collections.ObservableList<DetailVente> panierGlobal = panier.getLignes();
 
     // ============================================
     // INITIALISATION
@@ -96,17 +101,15 @@ public class CategorieProduitsController {
     @FXML
     private void initialize() {
         produitDAO = new ProduitDAO();
-        initialiserPanierGlobal();
         updatePanierCount();
     }
 
     /**
-     * Initialise le panier global s'il n'existe pas
+     * À chaque affichage (vue conservée en cache) : le panier a pu changer entre-temps
      */
-    private void initialiserPanierGlobal() {
-        if (panierGlobal == null) {
-            panierGlobal = javafx.collections.FXCollections.observableArrayList();
-        }
+    @Override
+    public void onShow() {
+        updatePanierCount();
     }
 
     /**
@@ -126,16 +129,23 @@ public class CategorieProduitsController {
      * Charge et affiche tous les produits de la catégorie
      */
     private void chargerProduits() {
-        try {
-            // Configuration du conteneur
-            produitsContainer.getChildren().clear();
-            produitsContainer.setHgap(15);
-            produitsContainer.setVgap(15);
-            produitsContainer.setPadding(new Insets(20));
-
-            // Récupération des produits
-            java.util.List<Produit> produits = produitDAO.findByCategorie(categorie);
+        // Configuration du conteneur
+        produitsContainer.getChildren().clear();
+        produitsContainer.setHgap(15);
+        produitsContainer.setVgap(15);
+        produitsContainer.setPadding(new Insets(20));
+
+        // Récupération des produits en arrière-plan
+        String categorieChargee = categorie;
+        BackgroundLoader.charger(produitsContainer, "produits", () -> produitDAO.findByCategorie(categorieChargee),
+                this::afficherProduits, e -> afficherErreurChargement());
+    }
 
+    /**
+     * Affiche une carte par produit de la catégorie
+     */
+    private void afficherProduits(java.util.List<Produit> produits) {
+        try {
             // Vérifier si des produits existent
             if (produits == null || produits.isEmpty()) {
                 afficherMessageAucunProduit();
@@ -221,7 +231,7 @@ public class CategorieProduitsController {
      * Crée le label du prix
      */
     private Label creerLabelPrix(Produit produit) {
-        Label prixLabel = new Label(String.format("%.2f €", produit.getPrixVenteDefaut()));
+        Label prixLabel = new Label(produit.getPrixVenteDefaut().formater() + " €");
         prixLabel.setStyle("-fx-font-size: 24px; -fx-font-weight: bold; -fx-text-fill: #4CAF50;");
         return prixLabel;
     }
@@ -378,10 +388,7 @@ public class CategorieProduitsController {
      * Recherche un produit dans le panier par son ID
      */
     private DetailVente rechercherProduitDansPanier(int produitId) {
-        return panierGlobal.stream()
-                .filter(d -> d.getProduitId() == produitId)
-                .findFirst()
-                .orElse(null);
+        return getPanier().trouver(produitId);
     }
 
     /**
@@ -406,13 +413,7 @@ public class CategorieProduitsController {
      * Ajoute un nouveau produit au panier
      */
     private void ajouterNouveauProduitAuPanier(Produit produit) {
-        DetailVente detail = new DetailVente();
-        detail.setProduitId(produit.getId());
-        detail.setQuantite(1);
-        detail.setPrixVenteUnitaire(produit.getPrixVenteDefaut());
-        detail.setPrixAchatUnitaire(produit.getPrixAchatActuel());
-        detail.setProduit(produit);
-        panierGlobal.add(detail);
+        getPanier().ajouter(produit, 1);
     }
 
     /**
@@ -426,13 +427,17 @@ public class CategorieProduitsController {
     }
 
     /**
-     * Retourne le panier global
+     * Retourne le panier global (lignes et totaux)
+     */
+    public static Panier getPanier() {
+        return panier;
+    }
+
+    /**
+     * Retourne les lignes du panier global
      */
     public static javafx.collections.ObservableList<DetailVente> getPanierGlobal() {
-        if (panierGlobal == null) {
-            panierGlobal = javafx.collections.FXCollections.observableArrayList();
-        }
-        return panierGlobal;
+        return getPanier().getLignes();
     }
 
     // ============================================
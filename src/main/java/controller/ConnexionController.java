@@ -5,10 +5,12 @@ import java.io.IOException;
 import dao.UtilisateurDAO;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import model.Utilisateur;
+import util.BackgroundLoader;
 import util.FXMLUtils;
 
 /**
@@ -22,6 +24,9 @@ public class ConnexionController {
     @FXML
     private PasswordField passwordField;
     
+    @FXML
+    private Button connexionButton;
+    
     private final UtilisateurDAO utilisateurDAO;
     private static Utilisateur utilisateurConnecte;
     
@@ -72,10 +77,32 @@ public class ConnexionController {
             return;
         }
         
-        Utilisateur utilisateur = utilisateurDAO.authenticate(username, password);
+        // Une seule vérification à la fois (Entrée répétée, double clic)
+        if (BackgroundLoader.isEnCours(usernameField)) {
+            return;
+        }
         
+        // BCrypt hors du thread JavaFX : la fenêtre reste réactive pendant la vérification
+        afficherVerification(true);
+        BackgroundLoader.charger(usernameField, "connexion", () -> utilisateurDAO.authenticate(username, password),
+                utilisateur -> {
+                    afficherVerification(false);
+                    terminerConnexion(utilisateur);
+                },
+                e -> {
+                    afficherVerification(false);
+                    showAlert(Alert.AlertType.ERROR, "Erreur",
+                             "Erreur lors de la connexion: " + e.getMessage());
+                });
+    }
+    
+    /**
+     * Ouvre l'interface du rôle de l'utilisateur authentifié (null si l'authentification a échoué)
+     */
+    private void terminerConnexion(Utilisateur utilisateur) {
         if (utilisateur != null) {
             utilisateurConnecte = utilisateur;
+            util.StartupTimeline.marquerUneFois("première connexion");
             
             try {
                 Stage stage = (Stage) usernameField.getScene().getWindow();
@@ -95,6 +122,19 @@ public class ConnexionController {
             showAlert(Alert.AlertType.ERROR, "Échec de connexion", 
                      "Nom d'utilisateur ou mot de passe incorrect.");
             passwordField.clear();
+            passwordField.requestFocus();
+        }
+    }
+    
+    /**
+     * État « vérification en cours » : saisie désactivée et bouton explicite
+     */
+    private void afficherVerification(boolean enCours) {
+        usernameField.setDisable(enCours);
+        passwordField.setDisable(enCours);
+        if (connexionButton != null) {
+            connexionButton.setDisable(enCours);
+            connexionButton.setText(enCours ? "⏳ Vérification..." : "🔐 Se connecter");
         }
     }
     
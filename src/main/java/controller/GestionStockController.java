@@ -1,7 +1,6 @@
 package controller;
 
-import java.math.BigDecimal;
-
+import dao.ProductCsvImport;
 import dao.ProduitDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -19,7 +18,12 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
+import model.Montant;
 import model.Produit;
+import util.BackgroundLoader;
+
+import java.io.File;
 
 /**
  * Contrôleur pour la gestion de stock (Admin uniquement)
@@ -76,10 +80,10 @@ public class GestionStockController {
     private TableColumn<Produit, String> categorieColumn;
 
     @FXML
-    private TableColumn<Produit, BigDecimal> prixAchatColumn;
+    private TableColumn<Produit, Montant> prixAchatColumn;
 
     @FXML
-    private TableColumn<Produit, BigDecimal> prixVenteColumn;
+    private TableColumn<Produit, Montant> prixVenteColumn;
 
     @FXML
     private TableColumn<Produit, Integer> quantiteStockColumn;
@@ -108,9 +112,14 @@ public class GestionStockController {
     @FXML
     private Button retourButton;
 
+    @FXML
+    private Button importerButton;
+
     // ========================================
     // DONNÉES & DAO
     // ========================================
+    private static final int ERREURS_IMPORT_AFFICHEES = 10;
+
     private ProduitDAO produitDAO;
     private ObservableList<Produit> produitsList;
     private Produit produitSelectionne;
@@ -161,26 +170,26 @@ public class GestionStockController {
         seuilAlerteColumn.setCellValueFactory(new PropertyValueFactory<>("seuilAlerte"));
 
         // Formatage des colonnes de prix
-        prixAchatColumn.setCellFactory(column -> new TableCell<Produit, BigDecimal>() {
+        prixAchatColumn.setCellFactory(column -> new TableCell<Produit, Montant>() {
             @Override
-            protected void updateItem(BigDecimal item, boolean empty) {
+            protected void updateItem(Montant item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%.2f €", item));
+                    setText(item.formater() + " €");
                 }
             }
         });
 
-        prixVenteColumn.setCellFactory(column -> new TableCell<Produit, BigDecimal>() {
+        prixVenteColumn.setCellFactory(column -> new TableCell<Produit, Montant>() {
             @Override
-            protected void updateItem(BigDecimal item, boolean empty) {
+            protected void updateItem(Montant item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%.2f €", item));
+                    setText(item.formater() + " €");
                 }
             }
         });
@@ -342,6 +351,53 @@ public class GestionStockController {
         }
     }
 
+    /**
+     * Handler pour importer un catalogue de produits depuis un fichier CSV
+     */
+    @FXML
+    private void handleImporterCsv() {
+        FileChooser choix = new FileChooser();
+        choix.setTitle("Importer des produits");
+        choix.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichier CSV", "*.csv"));
+        File fichier = choix.showOpenDialog(importerButton.getScene().getWindow());
+        if (fichier == null) {
+            return;
+        }
+
+        importerButton.setDisable(true);
+        String texteBouton = importerButton.getText();
+        BackgroundLoader.charger(produitsTable, "import", () -> {
+            ProductCsvImport.Rapport rapport = new ProductCsvImport().importer(fichier.toPath(),
+                    (traitees, total) -> javafx.application.Platform.runLater(() ->
+                            importerButton.setText("Import " + traitees + " / " + total)));
+            if (!rapport.getErreurs().isEmpty()) {
+                rapport.ecrireErreurs(fichier.toPath().resolveSibling(fichier.getName() + ".erreurs.csv"));
+            }
+            return rapport;
+        }, rapport -> {
+            importerButton.setDisable(false);
+            importerButton.setText(texteBouton);
+            chargerProduits();
+
+            StringBuilder message = new StringBuilder()
+                    .append(rapport.getProduitsImportes()).append(" produit(s) importé(s) sur ")
+                    .append(rapport.getLignesLues()).append(" ligne(s).");
+            if (rapport.getErreurs().isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "Import terminé", message.toString());
+                return;
+            }
+            message.append("\n").append(rapport.getErreurs().size()).append(" ligne(s) écartée(s), détail dans ")
+                    .append(fichier.getName()).append(".erreurs.csv :");
+            rapport.getErreurs().stream().limit(ERREURS_IMPORT_AFFICHEES).forEach(e ->
+                    message.append("\nLigne ").append(e.getLigne()).append(" : ").append(e.getMessage()));
+            showAlert(Alert.AlertType.WARNING, "Import terminé avec des erreurs", message.toString());
+        }, ex -> {
+            importerButton.setDisable(false);
+            importerButton.setText(texteBouton);
+            showAlert(Alert.AlertType.ERROR, "Erreur", "Erreur lors de l'import: " + ex.getMessage());
+        });
+    }
+
     /**
      * Handler pour modifier un produit
      */
@@ -392,19 +448,18 @@ public class GestionStockController {
      */
     @FXML
     private void handleRechercher() {
-        String recherche = rechercheField.getText().trim().toLowerCase();
+        String recherche = rechercheField.getText().trim();
 
         if (recherche.isEmpty()) {
             chargerProduits();
             return;
         }
 
-        produitsList.clear();
-        produitDAO.findAll().stream()
-                .filter(p -> p.getNom().toLowerCase().contains(recherche) ||
-                        p.getCodeBarre().contains(recherche) ||
-                        p.getCategorie().toLowerCase().contains(recherche))
-                .forEach(produitsList::add);
+        // Index de recherche en mémoire (préfixes, accents ignorés, fautes de frappe tolérées)
+        // Même clé que le chargement complet : seul le dernier résultat demandé est affiché
+        BackgroundLoader.charger(produitsTable, "produits",
+                () -> produitDAO.rechercher(recherche),
+                produitsList::setAll);
     }
 
     /**
@@ -441,8 +496,7 @@ public class GestionStockController {
      * Charger tous les produits depuis la base de données
      */
     private void chargerProduits() {
-        produitsList.clear();
-        produitsList.addAll(produitDAO.findAll());
+        BackgroundLoader.charger(produitsTable, "produits", produitDAO::findAll, produitsList::setAll);
     }
 
     /**
@@ -479,8 +533,8 @@ public class GestionStockController {
         String codeBarre = codeBarreField.getText().trim();
         String nom = nomField.getText().trim();
         String categorieValeur = categorieField.getText().trim();
-        BigDecimal prixAchat = new BigDecimal(prixAchatField.getText().trim());
-        BigDecimal prixVente = new BigDecimal(prixVenteField.getText().trim());
+        Montant prixAchat = Montant.parse(prixAchatField.getText());
+        Montant prixVente = Montant.parse(prixVenteField.getText());
         int quantiteStock = Integer.parseInt(quantiteStockField.getText().trim());
         int seuilAlerte = Integer.parseInt(seuilAlerteField.getText().trim());
 
@@ -504,13 +558,13 @@ public class GestionStockController {
         }
 
         try {
-            BigDecimal prixAchat = new BigDecimal(prixAchatField.getText().trim());
-            BigDecimal prixVente = new BigDecimal(prixVenteField.getText().trim());
+            Montant prixAchat = Montant.parse(prixAchatField.getText());
+            Montant prixVente = Montant.parse(prixVenteField.getText());
             int quantiteStock = Integer.parseInt(quantiteStockField.getText().trim());
             int seuilAlerte = Integer.parseInt(seuilAlerteField.getText().trim());
 
             // Validation des valeurs
-            if (prixAchat.compareTo(BigDecimal.ZERO) < 0 || prixVente.compareTo(BigDecimal.ZERO) < 0 ||
+            if (prixAchat.signum() < 0 || prixVente.signum() < 0 ||
                     quantiteStock < 0 || seuilAlerte < 0) {
                 showAlert(Alert.AlertType.WARNING, "Valeurs invalides",
                         "Les valeurs ne peuvent pas être négatives.");
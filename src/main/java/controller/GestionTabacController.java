@@ -1,11 +1,9 @@
 package controller;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
-import dao.ProduitDAO;
 import dao.VenteDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -16,8 +14,12 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import model.DetailVente;
+import model.Montant;
 import model.Produit;
+import model.StatistiquesTabac;
 import model.Vente;
+import util.BackgroundLoader;
+import util.Config;
 
 /**
  * Contrôleur pour la gestion des ventes de tabac (Admin uniquement)
@@ -35,7 +37,7 @@ public class GestionTabacController {
     private TableColumn<Vente, String> dateColumn;
     
     @FXML
-    private TableColumn<Vente, BigDecimal> totalColumn;
+    private TableColumn<Vente, Montant> totalColumn;
     
     @FXML
     private TableColumn<Vente, Integer> utilisateurColumn;
@@ -50,10 +52,10 @@ public class GestionTabacController {
     private TableColumn<DetailVente, Integer> quantiteColumn;
     
     @FXML
-    private TableColumn<DetailVente, BigDecimal> prixColumn;
+    private TableColumn<DetailVente, Montant> prixColumn;
     
     @FXML
-    private TableColumn<DetailVente, BigDecimal> sousTotalColumn;
+    private TableColumn<DetailVente, Montant> sousTotalColumn;
     
     @FXML
     private TableView<Map<String, Object>> topProduitsTable;
@@ -65,7 +67,7 @@ public class GestionTabacController {
     private TableColumn<Map<String, Object>, Integer> quantiteTopColumn;
     
     @FXML
-    private TableColumn<Map<String, Object>, BigDecimal> caTopColumn;
+    private TableColumn<Map<String, Object>, Montant> caTopColumn;
     
     @FXML
     private Label totalTabacLabel;
@@ -83,14 +85,12 @@ public class GestionTabacController {
     private Label recetteMoisLabel;
     
     private VenteDAO venteDAO;
-    private ProduitDAO produitDAO;
     private ObservableList<Vente> ventesTabac;
     private ObservableList<Map<String, Object>> topProduits;
     
     @FXML
     private void initialize() {
         venteDAO = new VenteDAO();
-        produitDAO = new ProduitDAO();
         ventesTabac = FXCollections.observableArrayList();
         topProduits = FXCollections.observableArrayList();
         
@@ -112,13 +112,8 @@ public class GestionTabacController {
         produitColumn.setCellValueFactory(cellData -> {
             DetailVente detail = cellData.getValue();
             Produit produit = detail.getProduit();
-            if (produit == null) {
-                produit = produitDAO.findById(detail.getProduitId());
-                detail.setProduit(produit);
-            }
-            final Produit finalProduit = produit;
             return javafx.beans.binding.Bindings.createStringBinding(() ->
-                finalProduit != null ? finalProduit.getNom() : "Produit ID: " + detail.getProduitId()
+                produit != null ? produit.getNom() : "Produit ID: " + detail.getProduitId()
             );
         });
         quantiteColumn.setCellValueFactory(new PropertyValueFactory<>("quantite"));
@@ -138,8 +133,8 @@ public class GestionTabacController {
         });
         caTopColumn.setCellValueFactory(cellData -> {
             Map<String, Object> produit = cellData.getValue();
-            BigDecimal ca = (BigDecimal) produit.get("ca");
-            return javafx.beans.binding.Bindings.createObjectBinding(() -> ca != null ? ca : BigDecimal.ZERO);
+            Montant ca = (Montant) produit.get("ca");
+            return javafx.beans.binding.Bindings.createObjectBinding(() -> ca != null ? ca : Montant.ZERO);
         });
         
         ventesTabacTable.setItems(ventesTabac);
@@ -152,87 +147,40 @@ public class GestionTabacController {
             }
         });
         
-        chargerVentesTabac();
-        chargerTopProduits();
-        calculerStatistiques();
+        chargerDonnees();
     }
     
     /**
-     * Charge toutes les ventes de tabac
+     * Charge en arrière-plan les ventes récentes, les meilleurs produits et les
+     * statistiques, puis les affiche en une fois
      */
-    private void chargerVentesTabac() {
-        ventesTabac.clear();
-        java.util.List<Vente> ventes = venteDAO.findVentesTabac();
-        ventesTabac.addAll(ventes);
-    }
-    
-    /**
-     * Charge les meilleurs produits de tabac
-     */
-    private void chargerTopProduits() {
-        topProduits.clear();
-        java.util.List<Map<String, Object>> produits = venteDAO.getTopProduitsTabac(10);
-        topProduits.addAll(produits);
+    private void chargerDonnees() {
+        BackgroundLoader.charger(ventesTabacTable, "tabac", () -> {
+            DonneesTabac donnees = new DonneesTabac();
+            donnees.ventes = venteDAO.findVentesTabac(Config.TABAC_VENTES_AFFICHEES);
+            donnees.topProduits = venteDAO.getTopProduitsTabac(10);
+            donnees.statistiques = venteDAO.getStatistiquesTabac(LocalDateTime.now());
+            return donnees;
+        }, donnees -> {
+            ventesTabac.setAll(donnees.ventes);
+            topProduits.setAll(donnees.topProduits);
+            
+            StatistiquesTabac stats = donnees.statistiques;
+            recetteAujourdhuiLabel.setText(stats.getRecetteAujourdhui().formater() + " €");
+            recetteSemaineLabel.setText(stats.getRecetteSemaine().formater() + " €");
+            recetteMoisLabel.setText(stats.getRecetteMois().formater() + " €");
+            totalTabacLabel.setText(stats.getTotalGeneral().formater() + " €");
+            nombreVentesLabel.setText(String.valueOf(stats.getNombreVentes()));
+        });
     }
     
     /**
-     * Charge les détails d'une vente sélectionnée
+     * Charge les lignes de tabac d'une vente sélectionnée (produits compris)
      */
     private void chargerDetailsVente(Vente vente) {
-        ObservableList<DetailVente> details = FXCollections.observableArrayList();
-        java.util.List<DetailVente> detailsList = venteDAO.findDetailsByVente(vente.getId());
-        
-        // Filtrer pour ne garder que les produits de tabac
-        for (DetailVente detail : detailsList) {
-            Produit produit = produitDAO.findById(detail.getProduitId());
-            if (produit != null && produit.isTabac()) {
-                detail.setProduit(produit);
-                details.add(detail);
-            }
-        }
-        
-        detailsTable.setItems(details);
-    }
-    
-    /**
-     * Calcule et affiche les statistiques (jour, semaine, mois, total)
-     */
-    private void calculerStatistiques() {
-        LocalDateTime maintenant = LocalDateTime.now();
-        
-        // Total aujourd'hui (00:00:00 à 23:59:59)
-        LocalDateTime debutJour = maintenant.withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime finJour = maintenant.withHour(23).withMinute(59).withSecond(59).withNano(999999999);
-        BigDecimal recetteAujourdhui = venteDAO.getTotalVentesTabac(debutJour, finJour);
-        recetteAujourdhuiLabel.setText(String.format("%.2f €", recetteAujourdhui));
-        
-        // Total cette semaine (lundi à aujourd'hui)
-        LocalDateTime debutSemaine = maintenant.minusDays(maintenant.getDayOfWeek().getValue() - 1)
-                                                .withHour(0).withMinute(0).withSecond(0).withNano(0);
-        BigDecimal recetteSemaine = venteDAO.getTotalVentesTabac(debutSemaine, finJour);
-        recetteSemaineLabel.setText(String.format("%.2f €", recetteSemaine));
-        
-        // Total ce mois (1er du mois à aujourd'hui)
-        LocalDateTime debutMois = maintenant.withDayOfMonth(1)
-                                            .withHour(0).withMinute(0).withSecond(0).withNano(0);
-        BigDecimal recetteMois = venteDAO.getTotalVentesTabac(debutMois, finJour);
-        recetteMoisLabel.setText(String.format("%.2f €", recetteMois));
-        
-        // Total général des ventes de tabac
-        BigDecimal totalGeneral = BigDecimal.ZERO;
-        for (Vente vente : ventesTabac) {
-            java.util.List<DetailVente> details = venteDAO.findDetailsByVente(vente.getId());
-            for (DetailVente detail : details) {
-                Produit produit = produitDAO.findById(detail.getProduitId());
-                if (produit != null && produit.isTabac()) {
-                    totalGeneral = totalGeneral.add(detail.getSousTotal());
-                }
-            }
-        }
-        totalTabacLabel.setText(String.format("%.2f €", totalGeneral));
-        
-        // Nombre de ventes
-        nombreVentesLabel.setText(String.valueOf(ventesTabac.size()));
+        BackgroundLoader.charger(detailsTable, "details",
+                () -> FXCollections.observableArrayList(venteDAO.findDetailsTabacByVente(vente.getId())),
+                details -> detailsTable.setItems(details));
     }
     
     @FXML
@@ -248,9 +196,7 @@ public class GestionTabacController {
     
     @FXML
     private void handleRafraichir() {
-        chargerVentesTabac();
-        chargerTopProduits();
-        calculerStatistiques();
+        chargerDonnees();
     }
     
     private void showAlert(Alert.AlertType type, String title, String message) {
@@ -260,4 +206,13 @@ public class GestionTabacController {
         alert.setContentText(message);
         alert.showAndWait();
     }
+    
+    /**
+     * Données de l'écran, préparées en arrière-plan
+     */
+    private static final class DonneesTabac {
+        private java.util.List<Vente> ventes;
+        private java.util.List<Map<String, Object>> topProduits;
+        private StatistiquesTabac statistiques;
+    }
 }
@@ -10,6 +10,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import model.Utilisateur;
+import util.BackgroundLoader;
 import util.SecurityUtil;
 
 /**
@@ -377,8 +378,8 @@ public class GestionUtilisateursController {
      * Charger tous les utilisateurs depuis la base de données
      */
     private void chargerUtilisateurs() {
-        utilisateursList.clear();
-        utilisateursList.addAll(utilisateurDAO.findAll());
+        BackgroundLoader.charger(utilisateursTable, "utilisateurs", utilisateurDAO::findAll,
+                utilisateursList::setAll);
     }
 
     /**
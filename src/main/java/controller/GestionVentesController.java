@@ -2,8 +2,9 @@ package controller;
 
 import dao.VenteDAO;
 import dao.DetailVenteDAO;
-import dao.ProduitDAO;
-import dao.UtilisateurDAO;
+import dao.SalesCsvExport;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -13,12 +14,16 @@ import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
-import model.Vente;
+import javafx.stage.FileChooser;
 import model.DetailVente;
-import model.Produit;
+import model.Montant;
+import model.ResumeVente;
+import model.StatistiquesVentes;
+import util.BackgroundLoader;
+import util.Config;
 import util.FXMLUtils;
 
-import java.math.BigDecimal;
+import java.io.File;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -123,6 +128,9 @@ public class GestionVentesController {
     @FXML
     private TableColumn<VenteDisplay, Void> colAction;
 
+    @FXML
+    private Button plusVentesButton;
+
     @FXML
     private TableView<ProduitStats> produitsTable;
 
@@ -138,16 +146,37 @@ public class GestionVentesController {
     @FXML
     private TableColumn<ProduitStats, String> colCA;
 
+    // ========================================
+    // EXPORT CSV
+    // ========================================
+    @FXML
+    private DatePicker exportDebutPicker;
+
+    @FXML
+    private DatePicker exportFinPicker;
+
+    @FXML
+    private Button exportButton;
+
+    @FXML
+    private ProgressBar exportProgressBar;
+
+    @FXML
+    private Label exportStatutLabel;
+
     // ========================================
     // DONNÉES & DAO
     // ========================================
+    private static final int JOURS_STATISTIQUES = 30;
+    private static final int LIGNES_PAR_PAGE = 500;
+
     private VenteDAO venteDAO;
     private DetailVenteDAO detailVenteDAO;
-    private ProduitDAO produitDAO;
-    private UtilisateurDAO utilisateurDAO;
 
     private ObservableList<VenteDisplay> ventesList;
+    private ResumeVente derniereVente; // curseur de l'historique des ventes
     private ObservableList<ProduitStats> produitStatsList;
+    private Task<Long> exportEnCours;
 
     /**
      * Initialisation du contrôleur
@@ -157,8 +186,6 @@ public class GestionVentesController {
         // Initialisation des DAOs
         venteDAO = new VenteDAO();
         detailVenteDAO = new DetailVenteDAO();
-        produitDAO = new ProduitDAO();
-        utilisateurDAO = new UtilisateurDAO();
 
         // Initialisation des listes
         ventesList = FXCollections.observableArrayList();
@@ -171,6 +198,10 @@ public class GestionVentesController {
         configureVentesTable();
         configureProduitsTable();
 
+        // Période d'export par défaut : le mois en cours
+        exportDebutPicker.setValue(LocalDate.now().withDayOfMonth(1));
+        exportFinPicker.setValue(LocalDate.now());
+
         // Charger les données
         chargerDonnees();
 
@@ -282,59 +313,67 @@ public class GestionVentesController {
      * Charger toutes les données
      */
     private void chargerDonnees() {
-        chargerStatistiques();
-        chargerGraphiques();
+        chargerTableauDeBord();
         chargerVentes();
         chargerTopProduits();
     }
 
+    /**
+     * Charger les KPIs et les graphiques (en arrière-plan)
+     * Les KPIs et la courbe viennent d'une seule requête (30 derniers jours, par jour)
+     */
+    private void chargerTableauDeBord() {
+        LocalDateTime demain = LocalDate.now().plusDays(1).atStartOfDay();
+        BackgroundLoader.charger(dashboardView, "tableau-de-bord",
+                () -> new DonneesTableauDeBord(
+                        venteDAO.getStatistiques(demain.minusDays(JOURS_STATISTIQUES), demain,
+                                StatistiquesVentes.Granularite.JOUR),
+                        detailVenteDAO.getVentesParCategorie()),
+                donnees -> {
+                    chargerStatistiques(donnees.stats);
+                    chargerGraphiques(donnees.stats, donnees.ventesParCategorie);
+                });
+    }
+
     /**
      * Charger les statistiques (KPIs)
+     * @param stats Statistiques journalières, la dernière case étant aujourd'hui
      */
-    private void chargerStatistiques() {
-        LocalDateTime maintenant = LocalDateTime.now();
-        LocalDateTime debutJour = maintenant.toLocalDate().atStartOfDay();
-        LocalDateTime debutSemaine = maintenant.minusDays(7);
-        LocalDateTime debutMois = maintenant.minusDays(30);
+    private void chargerStatistiques(StatistiquesVentes stats) {
+        int n = stats.size();
 
         // CA Aujourd'hui
-        BigDecimal caJour = venteDAO.getCAParPeriode(debutJour, maintenant);
-        caJourLabel.setText(String.format("%.2f €", caJour));
+        caJourLabel.setText(stats.getCA(n - 1).formater() + " €");
 
-        // CA Semaine
-        BigDecimal caSemaine = venteDAO.getCAParPeriode(debutSemaine, maintenant);
-        caSemaineLabel.setText(String.format("%.2f €", caSemaine));
+        // CA Semaine (7 derniers jours)
+        caSemaineLabel.setText(stats.getCA(n - 7, n).formater() + " €");
 
-        // CA Mois
-        BigDecimal caMois = venteDAO.getCAParPeriode(debutMois, maintenant);
-        caMoisLabel.setText(String.format("%.2f €", caMois));
+        // CA Mois (30 derniers jours)
+        caMoisLabel.setText(stats.getCA(0, n).formater() + " €");
 
         // Nombre de ventes aujourd'hui
-        int nbVentes = venteDAO.getNombreVentesParPeriode(debutJour, maintenant);
-        nbVentesLabel.setText(String.valueOf(nbVentes));
+        nbVentesLabel.setText(String.valueOf(stats.getNombreVentes(n - 1)));
 
         // Panier moyen
-        BigDecimal panierMoyen = nbVentes > 0 ? caJour.divide(BigDecimal.valueOf(nbVentes), 2, BigDecimal.ROUND_HALF_UP) : BigDecimal.ZERO;
-        panierMoyenLabel.setText(String.format("%.2f €", panierMoyen));
+        panierMoyenLabel.setText(stats.getPanierMoyen(n - 1).formater() + " €");
 
-        // Bénéfice estimé (20% du CA pour cet exemple)
-        BigDecimal benefice = caMois.multiply(BigDecimal.valueOf(0.20));
-        beneficeLabel.setText(String.format("%.2f €", benefice));
+        // Bénéfice réel sur 30 jours (prix de vente - prix d'achat enregistrés)
+        beneficeLabel.setText(stats.getBenefice(0, n).formater() + " €");
     }
 
     /**
      * Charger les données des graphiques
      */
-    private void chargerGraphiques() {
-        chargerLineChart();
-        chargerPieChart();
-        chargerBarChart();
+    private void chargerGraphiques(StatistiquesVentes stats, Map<String, Montant> ventesParCategorie) {
+        chargerLineChart(stats);
+        chargerPieChart(ventesParCategorie);
+        chargerBarChart(ventesParCategorie);
     }
 
     /**
      * Charger le graphique en ligne (Évolution des ventes 7 jours)
      */
-    private void chargerLineChart() {
+    private void chargerLineChart(StatistiquesVentes stats) {
         ventesLineChart.getData().clear();
 
         XYChart.Series<String, Number> seriesMontant = new XYChart.Series<>();
@@ -343,22 +382,15 @@ public class GestionVentesController {
         XYChart.Series<String, Number> seriesNbVentes = new XYChart.Series<>();
         seriesNbVentes.setName("Nombre de ventes");
 
-        // Récupérer les données des 7 derniers jours
-        LocalDateTime maintenant = LocalDateTime.now();
+        // Les 7 derniers jours des statistiques déjà chargées
         String[] jours = {"Lun", "Mar", "Mer", "Jeu", "Ven", "Sam", "Dim"};
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDateTime debut = maintenant.minusDays(i).toLocalDate().atStartOfDay();
-            LocalDateTime fin = debut.plusDays(1);
-
-            BigDecimal ca = venteDAO.getCAParPeriode(debut, fin);
-            int nbVentes = venteDAO.getNombreVentesParPeriode(debut, fin);
-
-            int jourIndex = debut.getDayOfWeek().getValue() - 1;
+        for (int i = Math.max(0, stats.size() - 7); i < stats.size(); i++) {
+            int jourIndex = stats.getDebut(i).getDayOfWeek().getValue() - 1;
             String jour = jours[jourIndex];
 
-            seriesMontant.getData().add(new XYChart.Data<>(jour, ca.doubleValue()));
-            seriesNbVentes.getData().add(new XYChart.Data<>(jour, nbVentes));
+            seriesMontant.getData().add(new XYChart.Data<>(jour, stats.getCA(i).doubleValue()));
+            seriesNbVentes.getData().add(new XYChart.Data<>(jour, stats.getNombreVentes(i)));
         }
 
         ventesLineChart.getData().addAll(seriesMontant, seriesNbVentes);
@@ -367,12 +399,10 @@ public class GestionVentesController {
     /**
      * Charger le graphique circulaire (Ventes par catégorie)
      */
-    private void chargerPieChart() {
+    private void chargerPieChart(Map<String, Montant> ventesParCategorie) {
         categoriesPieChart.getData().clear();
 
-        Map<String, BigDecimal> ventesParCategorie = detailVenteDAO.getVentesParCategorie();
-
-        for (Map.Entry<String, BigDecimal> entry : ventesParCategorie.entrySet()) {
+        for (Map.Entry<String, Montant> entry : ventesParCategorie.entrySet()) {
             PieChart.Data slice = new PieChart.Data(
                     entry.getKey(),
                     entry.getValue().doubleValue()
@@ -384,15 +414,13 @@ public class GestionVentesController {
     /**
      * Charger le graphique à barres (CA par catégorie)
      */
-    private void chargerBarChart() {
+    private void chargerBarChart(Map<String, Montant> ventesParCategorie) {
         caBarChart.getData().clear();
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("CA (€)");
 
-        Map<String, BigDecimal> ventesParCategorie = detailVenteDAO.getVentesParCategorie();
-
-        for (Map.Entry<String, BigDecimal> entry : ventesParCategorie.entrySet()) {
+        for (Map.Entry<String, Montant> entry : ventesParCategorie.entrySet()) {
             series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue().doubleValue()));
         }
 
@@ -400,78 +428,102 @@ public class GestionVentesController {
     }
 
     /**
-     * Charger la liste des ventes récentes
+     * Charger la première page de l'historique des ventes
      */
     private void chargerVentes() {
+        derniereVente = null;
         ventesList.clear();
+        chargerPlusVentes();
+    }
 
-        List<Vente> ventes = venteDAO.findRecent(50); // 50 ventes les plus récentes
-
-        for (Vente vente : ventes) {
-            // Récupérer les détails de la vente
-            List<DetailVente> details = detailVenteDAO.findByVenteId(vente.getId());
-            int nbArticles = details.stream().mapToInt(DetailVente::getQuantite).sum();
-
-            // Récupérer le nom du caissier
-            String caissier = utilisateurDAO.findById(vente.getUtilisateurId()).getUsername();
-
-            VenteDisplay display = new VenteDisplay(
-                    "#" + vente.getId(),
-                    vente.getDateVente().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
-                    String.format("%.2f €", vente.getTotalVente()),
-                    nbArticles,
-                    caissier,
-                    vente.getId()
-            );
-
-            ventesList.add(display);
-        }
+    /**
+     * Charger la page suivante de l'historique (après la dernière vente affichée)
+     */
+    @FXML
+    private void chargerPlusVentes() {
+        ResumeVente apres = derniereVente;
+        plusVentesButton.setDisable(true);
+
+        BackgroundLoader.charger(ventesTable, "ventes",
+                () -> venteDAO.findResumes(apres, Config.HISTORIQUE_VENTES_PAGE),
+                ventes -> {
+                    DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+                    List<VenteDisplay> page = new ArrayList<>(ventes.size());
+                    for (ResumeVente vente : ventes) {
+                        page.add(new VenteDisplay(
+                                "#" + vente.getId(),
+                                vente.getDateVente().format(format),
+                                vente.getTotalVente().formater() + " €",
+                                vente.getNbArticles(),
+                                vente.getCaissier() != null ? vente.getCaissier() : "?",
+                                vente.getId()
+                        ));
+                    }
+                    ventesList.addAll(page);
+
+                    if (!ventes.isEmpty()) {
+                        derniereVente = ventes.get(ventes.size() - 1);
+                    }
+                    plusVentesButton.setDisable(ventes.size() < Config.HISTORIQUE_VENTES_PAGE);
+                },
+                erreur -> plusVentesButton.setDisable(false));
     }
 
     /**
      * Charger le top 5 des produits
      */
     private void chargerTopProduits() {
-        produitStatsList.clear();
-
-        List<ProduitStats> topProduits = detailVenteDAO.getTopProduits(5);
-
-        int rang = 1;
-        for (ProduitStats stats : topProduits) {
-            stats.setRang(rang++);
-            produitStatsList.add(stats);
-        }
+        BackgroundLoader.charger(produitsTable, "top-produits",
+                () -> detailVenteDAO.getTopProduits(5),
+                topProduits -> {
+                    int rang = 1;
+                    for (ProduitStats stats : topProduits) {
+                        stats.setRang(rang++);
+                    }
+                    produitStatsList.setAll(topProduits);
+                });
     }
 
     /**
-     * Afficher les détails d'une vente
+     * Afficher les détails d'une vente (lignes chargées en arrière-plan)
      */
     private void afficherDetailsVente(VenteDisplay venteDisplay) {
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Détails de la vente");
-        alert.setHeaderText("Vente " + venteDisplay.getId());
-
-        // Récupérer les détails de la vente
-        List<DetailVente> details = detailVenteDAO.findByVenteId(venteDisplay.getVenteId());
-
-        StringBuilder content = new StringBuilder();
-        content.append(String.format("Date: %s\n", venteDisplay.getDateHeure()));
-        content.append(String.format("Caissier: %s\n", venteDisplay.getCaissier()));
-        content.append(String.format("Montant total: %s\n\n", venteDisplay.getMontant()));
-        content.append("Articles:\n");
-        content.append("─────────────────────────────────\n");
-
-        for (DetailVente detail : details) {
-            Produit produit = produitDAO.findById(detail.getProduitId());
-            content.append(String.format("• %s\n", produit.getNom()));
-            content.append(String.format("  Quantité: %d × %.2f € = %.2f €\n",
-                    detail.getQuantite(),
-                    detail.getPrixVenteUnitaire(),
-                    detail.getSousTotal()));
-        }
-
-        alert.setContentText(content.toString());
-        alert.showAndWait();
+        BackgroundLoader.charger(ventesTable, "details-vente",
+                () -> {
+                    // Lignes de la vente (noms des produits compris), page par page
+                    List<DetailVente> details = new ArrayList<>();
+                    List<DetailVente> page;
+                    do {
+                        int apresId = details.isEmpty() ? 0 : details.get(details.size() - 1).getIdDetail();
+                        page = venteDAO.findLignes(venteDisplay.getVenteId(), apresId, LIGNES_PAR_PAGE);
+                        details.addAll(page);
+                    } while (page.size() == LIGNES_PAR_PAGE);
+                    return details;
+                },
+                details -> {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("Détails de la vente");
+                    alert.setHeaderText("Vente " + venteDisplay.getId());
+
+                    StringBuilder content = new StringBuilder();
+                    content.append(String.format("Date: %s\n", venteDisplay.getDateHeure()));
+                    content.append(String.format("Caissier: %s\n", venteDisplay.getCaissier()));
+                    content.append(String.format("Montant total: %s\n\n", venteDisplay.getMontant()));
+                    content.append("Articles:\n");
+                    content.append("─────────────────────────────────\n");
+
+                    for (DetailVente detail : details) {
+                        content.append(String.format("• %s\n", detail.getProduit().getNom()));
+                        content.append(String.format("  Quantité: %d × %s € = %s €\n",
+                                detail.getQuantite(),
+                                detail.getPrixVenteUnitaire().formater(),
+                                detail.getSousTotal().formater()));
+                    }
+
+                    alert.setContentText(content.toString());
+                    alert.showAndWait();
+                });
     }
 
     /**
@@ -481,8 +533,7 @@ public class GestionVentesController {
     private void showDashboard() {
         activerVue(dashboardView);
         activerBouton(btnDashboard);
-        chargerStatistiques();
-        chargerGraphiques();
+        chargerTableauDeBord();
     }
 
     /**
@@ -551,6 +602,85 @@ public class GestionVentesController {
         }
     }
 
+    /**
+     * Exporter les ventes de la période en CSV compressé, ou annuler l'export en cours
+     */
+    @FXML
+    private void exporterVentes() {
+        if (exportEnCours != null) {
+            exportEnCours.cancel(true); // interrompt le thread : l'export s'arrête au prochain lot de lignes
+            exportButton.setDisable(true); // réactivé quand le thread a vraiment terminé
+            return;
+        }
+
+        LocalDate debut = exportDebutPicker.getValue();
+        LocalDate fin = exportFinPicker.getValue();
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            showAlert(Alert.AlertType.WARNING, "Période invalide",
+                    "Veuillez choisir une date de début et une date de fin postérieure.");
+            return;
+        }
+
+        FileChooser choix = new FileChooser();
+        choix.setTitle("Exporter les ventes");
+        choix.setInitialFileName("ventes_" + debut + "_" + fin + ".csv.gz");
+        choix.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV compressé", "*.csv.gz"));
+        File fichier = choix.showSaveDialog(exportButton.getScene().getWindow());
+        if (fichier == null) {
+            return;
+        }
+
+        Task<Long> tache = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                updateMessage("Préparation de l'export...");
+                return new SalesCsvExport().exporter(debut.atStartOfDay(), fin.plusDays(1).atStartOfDay(),
+                        fichier.toPath(), (lignes, total) -> {
+                            updateProgress(lignes, total);
+                            updateMessage(lignes + " / " + total + " lignes exportées");
+                        });
+            }
+        };
+
+        exportProgressBar.progressProperty().bind(tache.progressProperty());
+        exportStatutLabel.textProperty().bind(tache.messageProperty());
+        exportProgressBar.setVisible(true);
+        exportButton.setText("✖ Annuler l'export");
+        exportEnCours = tache;
+
+        tache.setOnSucceeded(e -> terminerExport(tache.getValue() + " lignes exportées dans " + fichier.getName()));
+        tache.setOnCancelled(e -> terminerExport("Export annulé"));
+        tache.setOnFailed(e -> {
+            Throwable ex = tache.getException();
+            System.err.println("Erreur lors de l'export des ventes: " + ex.getMessage());
+            terminerExport("Échec de l'export");
+            showAlert(Alert.AlertType.ERROR, "Erreur", "Erreur lors de l'export des ventes: " + ex.getMessage());
+        });
+
+        // Après une annulation, le thread continue jusqu'au prochain lot de lignes :
+        // un nouvel export n'est possible qu'une fois qu'il a rendu la main
+        Thread thread = new Thread(() -> {
+            try {
+                tache.run();
+            } finally {
+                Platform.runLater(() -> {
+                    exportEnCours = null;
+                    exportButton.setText("📥 Exporter CSV");
+                    exportButton.setDisable(false);
+                });
+            }
+        }, "export-ventes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void terminerExport(String statut) {
+        exportProgressBar.progressProperty().unbind();
+        exportStatutLabel.textProperty().unbind();
+        exportProgressBar.setVisible(false);
+        exportStatutLabel.setText(statut);
+    }
+
     /**
      * Générer un rapport (placeholder)
      */
@@ -613,6 +743,19 @@ public class GestionVentesController {
         public int getVenteId() { return venteId; }
     }
 
+    /**
+     * Données du tableau de bord, chargées ensemble en arrière-plan
+     */
+    private static final class DonneesTableauDeBord {
+        private final StatistiquesVentes stats;
+        private final Map<String, Montant> ventesParCategorie;
+
+        DonneesTableauDeBord(StatistiquesVentes stats, Map<String, Montant> ventesParCategorie) {
+            this.stats = stats;
+            this.ventesParCategorie = ventesParCategorie;
+        }
+    }
+
     /**
      * Classe pour les statistiques des produits
      */
@@ -622,10 +765,10 @@ public class GestionVentesController {
         private int quantiteVendue;
         private String caGenere;
 
-        public ProduitStats(String nomProduit, int quantiteVendue, BigDecimal ca) {
+        public ProduitStats(String nomProduit, int quantiteVendue, Montant ca) {
             this.nomProduit = nomProduit;
             this.quantiteVendue = quantiteVendue;
-            this.caGenere = String.format("%.2f €", ca);
+            this.caGenere = ca.formater() + " €";
         }
 
         public int getRang() { return rang; }
@@ -1,11 +1,14 @@
 package controller;
 
-import java.util.List;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 import dao.ProduitDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -20,6 +23,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import model.Produit;
+import util.BackgroundLoader;
 
 /**
  * Contrôleur pour la visualisation des produits avec filtrage et recherche
@@ -45,12 +49,14 @@ public class VisualisationProduitsController {
     private ProduitDAO produitDAO;
     private ObservableList<Produit> tousProduits;
     private FilteredList<Produit> produitsFiltres;
+    private SortedList<Produit> produitsTries;
     
     @FXML
     private void initialize() {
         produitDAO = new ProduitDAO();
         tousProduits = FXCollections.observableArrayList();
         produitsFiltres = new FilteredList<>(tousProduits, p -> true);
+        produitsTries = new SortedList<>(produitsFiltres);
         
         // Configuration du conteneur
         produitsContainer.setHgap(20);
@@ -77,22 +83,23 @@ public class VisualisationProduitsController {
      * Charge toutes les catégories disponibles
      */
     private void chargerCategories() {
-        List<String> categories = produitDAO.findAllCategories();
-        categorieComboBox.getItems().clear();
-        categorieComboBox.getItems().add("Toutes les catégories");
-        categorieComboBox.getItems().addAll(categories);
-        categorieComboBox.setValue("Toutes les catégories");
+        BackgroundLoader.charger(categorieComboBox, "categories", produitDAO::findAllCategories, categories -> {
+            categorieComboBox.getItems().clear();
+            categorieComboBox.getItems().add("Toutes les catégories");
+            categorieComboBox.getItems().addAll(categories);
+            categorieComboBox.setValue("Toutes les catégories");
+        });
     }
     
     /**
-     * Charge tous les produits depuis la base de données
+     * Charge tous les produits (en arrière-plan)
      */
     private void chargerProduits() {
-        tousProduits.clear();
-        List<Produit> produits = produitDAO.findAll();
-        tousProduits.addAll(produits);
-        afficherProduits();
-        mettreAJourTotal();
+        BackgroundLoader.charger(produitsContainer, "produits", produitDAO::findAll, produits -> {
+            tousProduits.setAll(produits);
+            afficherProduits();
+            mettreAJourTotal();
+        });
     }
     
     /**
@@ -101,7 +108,7 @@ public class VisualisationProduitsController {
     private void afficherProduits() {
         produitsContainer.getChildren().clear();
         
-        for (Produit produit : produitsFiltres) {
+        for (Produit produit : produitsTries) {
             VBox card = creerCarteProduit(produit);
             produitsContainer.getChildren().add(card);
         }
@@ -154,10 +161,10 @@ public class VisualisationProduitsController {
         HBox prixBox = new HBox(10);
         prixBox.setAlignment(Pos.CENTER);
         
-        Label prixAchatLabel = new Label("Achat: €" + String.format("%.2f", produit.getPrixAchatActuel()));
+        Label prixAchatLabel = new Label("Achat: €" + produit.getPrixAchatActuel().formater());
         prixAchatLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #757575;");
         
-        Label prixVenteLabel = new Label("Vente: €" + String.format("%.2f", produit.getPrixVenteDefaut()));
+        Label prixVenteLabel = new Label("Vente: €" + produit.getPrixVenteDefaut().formater());
         prixVenteLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #4CAF50;");
         
         prixBox.getChildren().addAll(prixAchatLabel, prixVenteLabel);
@@ -263,13 +270,34 @@ public class VisualisationProduitsController {
      * Filtre les produits selon la recherche et la catégorie
      */
     private void filtrerProduits() {
-        String recherche = rechercheField.getText().toLowerCase();
+        String recherche = rechercheField.getText().trim();
         String categorie = categorieComboBox.getValue();
         
+        if (recherche.isEmpty()) {
+            // Une recherche encore en cours afficherait ensuite son résultat par-dessus
+            BackgroundLoader.annuler(rechercheField, "recherche");
+            appliquerFiltre(null, categorie);
+            return;
+        }
+        
+        // Index de recherche : produits correspondants et leur rang de pertinence
+        // (seule la dernière saisie est affichée si plusieurs recherches se chevauchent)
+        BackgroundLoader.charger(rechercheField, "recherche", () -> {
+            Map<Integer, Integer> rangs = new HashMap<>();
+            for (Produit p : produitDAO.rechercher(recherche)) {
+                rangs.put(p.getId(), rangs.size());
+            }
+            return rangs;
+        }, rangs -> appliquerFiltre(rangs, categorie));
+    }
+    
+    /**
+     * Applique le filtre et l'ordre de pertinence puis réaffiche les cartes
+     * @param resultats Rang de chaque produit trouvé, null si aucune recherche
+     */
+    private void appliquerFiltre(Map<Integer, Integer> resultats, String categorie) {
         produitsFiltres.setPredicate(produit -> {
-            boolean matchRecherche = recherche.isEmpty() || 
-                produit.getNom().toLowerCase().contains(recherche) ||
-                produit.getCodeBarre().toLowerCase().contains(recherche);
+            boolean matchRecherche = resultats == null || resultats.containsKey(produit.getId());
             
             boolean matchCategorie = categorie == null || 
                 categorie.equals("Toutes les catégories") ||
@@ -277,6 +305,8 @@ public class VisualisationProduitsController {
             
             return matchRecherche && matchCategorie;
         });
+        produitsTries.setComparator(resultats == null ? null
+                : Comparator.comparingInt(produit -> resultats.get(produit.getId())));
         
         afficherProduits();
         mettreAJourTotal();
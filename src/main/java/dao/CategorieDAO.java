@@ -1,6 +1,7 @@
 package dao;
 
 import model.Categorie;
+import model.FamilleProduit;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -91,13 +92,19 @@ public class CategorieDAO {
      * @return true si la création réussit, false sinon
      */
     public boolean create(Categorie categorie) {
-        String sql = "INSERT INTO categories (nom, description) VALUES (?, ?)";
+        boolean hasFamille = SchemaRegistry.hasColumn("categories", "famille");
+        String sql = hasFamille
+                ? "INSERT INTO categories (nom, description, famille) VALUES (?, ?, ?)"
+                : "INSERT INTO categories (nom, description) VALUES (?, ?)";
         
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, categorie.getNom());
             stmt.setString(2, categorie.getDescription());
+            if (hasFamille) {
+                stmt.setInt(3, FamilleProduit.deCategorie(categorie.getNom()).getCode());
+            }
             
             int rowsAffected = stmt.executeUpdate();
             
@@ -117,20 +124,59 @@ public class CategorieDAO {
     
     /**
      * Met à jour une catégorie
+     * La famille (tabac ou non) est recalculée d'après le nouveau nom, pour la
+     * catégorie et pour les produits qui y sont rattachés (category_id) ; la famille
+     * de la catégorie fait ensuite foi pour ces produits (voir ProduitDAO.update)
      * @param categorie La catégorie à mettre à jour
      * @return true si la mise à jour réussit, false sinon
      */
     public boolean update(Categorie categorie) {
-        String sql = "UPDATE categories SET nom = ?, description = ? WHERE id = ?";
+        boolean hasFamille = SchemaRegistry.hasColumn("categories", "famille");
+        boolean produitsRattaches = SchemaRegistry.hasColumn("produits", "famille")
+                && SchemaRegistry.hasColumn("produits", "category_id");
+        int famille = FamilleProduit.deCategorie(categorie.getNom()).getCode();
+        String sql = hasFamille
+                ? "UPDATE categories SET nom = ?, description = ?, famille = ? WHERE id = ?"
+                : "UPDATE categories SET nom = ?, description = ? WHERE id = ?";
         
-        try (Connection conn = DBConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, categorie.getNom());
-            stmt.setString(2, categorie.getDescription());
-            stmt.setInt(3, categorie.getId());
-            
-            return stmt.executeUpdate() > 0;
+        try (Connection conn = DBConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int paramIndex = 1;
+                stmt.setString(paramIndex++, categorie.getNom());
+                stmt.setString(paramIndex++, categorie.getDescription());
+                if (hasFamille) {
+                    stmt.setInt(paramIndex++, famille);
+                }
+                stmt.setInt(paramIndex++, categorie.getId());
+                
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                
+                int produitsModifies = 0;
+                if (produitsRattaches) {
+                    try (PreparedStatement produits = conn.prepareStatement(
+                            "UPDATE produits SET famille = ? WHERE category_id = ? AND famille <> ?")) {
+                        produits.setInt(1, famille);
+                        produits.setInt(2, categorie.getId());
+                        produits.setInt(3, famille);
+                        produitsModifies = produits.executeUpdate();
+                    }
+                }
+                conn.commit();
+                
+                if (produitsModifies > 0) {
+                    ProductCatalog.getInstance().recharger();
+                }
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la mise à jour de catégorie: " + e.getMessage());
         }
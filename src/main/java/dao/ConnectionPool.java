@@ -0,0 +1,331 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de connexions JDBC borné.
+ *
+ * Les DAO continuent d'utiliser try-with-resources : la connexion renvoyée est
+ * un handle logique dont close() rend la connexion physique au pool au lieu de
+ * la fermer. Le pool gère une taille min/max, valide les connexions à l'emprunt,
+ * ferme celles restées inactives trop longtemps et signale les fuites
+ * (connexions empruntées et jamais rendues). Chaque connexion physique possède
+ * son propre cache d'instructions préparées (voir {@link StatementCache}).
+ */
+public class ConnectionPool {
+
+    /** En dessous de ce délai depuis la dernière utilisation, on ne revalide pas */
+    private static final long VALIDATION_BYPASS_MS = 500;
+    private static final long HOUSEKEEPING_PERIOD_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+    private final int validationTimeoutS;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize, long borrowTimeoutMs,
+                          long idleTimeoutMs, long leakThresholdMs, int validationTimeoutS,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tailles de pool invalides: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.validationTimeoutS = validationTimeoutS;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-connexions-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeeping,
+                HOUSEKEEPING_PERIOD_MS, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion au pool
+     * @return Un handle logique; l'appel à close() rend la connexion au pool
+     * @throws SQLException Si aucune connexion n'est disponible dans le délai imparti
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Aucune connexion disponible après " + borrowTimeoutMs
+                        + " ms (maximum " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu en attendant une connexion", e);
+        }
+
+        try {
+            PooledConnection pc;
+            // LIFO : la connexion la plus récemment rendue est la plus "chaude"
+            while ((pc = idle.pollFirst()) != null) {
+                if (pc.validate()) {
+                    break;
+                }
+                pc.closePhysical();
+            }
+            if (pc == null) {
+                pc = new PooledConnection(openPhysical());
+            }
+            pc.markBorrowed();
+            borrowed.add(pc);
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Ouvre les connexions nécessaires pour atteindre la taille minimale
+     */
+    public void warmUp() {
+        while (!closed && idle.size() + borrowed.size() < minSize) {
+            try {
+                PooledConnection pc = new PooledConnection(openPhysical());
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                System.err.println("Pool: impossible d'ouvrir une connexion: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ferme le pool et toutes les connexions physiques (inactives et empruntées)
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            pc.closePhysical();
+        }
+        for (PooledConnection b : borrowed) {
+            b.closePhysical();
+        }
+        borrowed.clear();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    private Connection openPhysical() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    private void release(PooledConnection pc) {
+        if (!borrowed.remove(pc)) {
+            return;
+        }
+        try {
+            if (closed || !pc.resetState()) {
+                pc.closePhysical();
+            } else {
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Éviction des connexions inactives, remise à niveau du minimum et détection des fuites
+     */
+    private void housekeeping() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // Les plus anciennes sont en fin de deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() + borrowed.size() > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsed > idleTimeoutMs && idle.remove(pc)) {
+                    pc.closePhysical();
+                }
+            }
+
+            warmUp();
+
+            if (leakThresholdMs > 0) {
+                for (PooledConnection pc : borrowed) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMs) {
+                        pc.leakReported = true;
+                        System.err.println("Pool: fuite probable, connexion empruntée depuis "
+                                + (now - pc.borrowedAt) + " ms sans être rendue");
+                        if (pc.borrowTrace != null) {
+                            pc.borrowTrace.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Pool: erreur de maintenance: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connexion physique gérée par le pool
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed;
+        private volatile long borrowedAt;
+        private volatile boolean leakReported;
+        private volatile Throwable borrowTrace;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize);
+        }
+
+        void markBorrowed() {
+            borrowedAt = System.currentTimeMillis();
+            leakReported = false;
+            borrowTrace = leakThresholdMs > 0 ? new Exception("Connexion empruntée ici") : null;
+        }
+
+        boolean validate() {
+            if (System.currentTimeMillis() - lastUsed < VALIDATION_BYPASS_MS) {
+                return true;
+            }
+            try {
+                return physical.isValid(validationTimeoutS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Remet la connexion dans un état neutre avant de la rendre au pool
+         * @return false si la connexion est inutilisable
+         */
+        boolean resetState() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Pool: erreur lors de la fermeture d'une connexion: " + e.getMessage());
+            }
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Handle logique remis aux DAO : close() rend la connexion au pool
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean logicallyClosed = false;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                default:
+                    break;
+            }
+            if (logicallyClosed) {
+                throw new SQLException("Connexion déjà rendue au pool");
+            }
+            if (StatementCache.isCacheable(method)) {
+                return pc.statements.prepare((String) args[0],
+                        StatementCache.autoGeneratedKeys(args), (Connection) proxy);
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
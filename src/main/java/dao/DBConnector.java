@@ -3,60 +3,75 @@ package dao;
 import util.Config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Gère la connexion et la déconnexion à MySQL (JDBC)
+ * Les connexions sont fournies par un pool borné (voir {@link ConnectionPool})
  */
 public class DBConnector {
-    private static Connection connection = null;
-    
+    private static volatile ConnectionPool pool = null;
+
+    /**
+     * Retourne le pool de connexions, en le créant au premier appel
+     * @return Le pool de connexions
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DBConnector.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool(
+                        Config.DB_URL,
+                        Config.DB_USER,
+                        Config.DB_PASSWORD,
+                        Config.POOL_MIN_SIZE,
+                        Config.POOL_MAX_SIZE,
+                        Config.POOL_BORROW_TIMEOUT_MS,
+                        Config.POOL_IDLE_TIMEOUT_MS,
+                        Config.POOL_LEAK_THRESHOLD_MS,
+                        Config.POOL_VALIDATION_TIMEOUT_S,
+                        Config.POOL_STATEMENT_CACHE_SIZE
+                    );
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
     /**
-     * Obtient une connexion à la base de données
+     * Obtient une connexion à la base de données depuis le pool
+     * La fermer (try-with-resources) la rend au pool
      * @return La connexion à la base de données
      * @throws SQLException Si la connexion échoue
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(
-                    Config.DB_URL,
-                    Config.DB_USER,
-                    Config.DB_PASSWORD
-                );
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("Driver MySQL non trouvé", e);
-            }
-        }
-        return connection;
+        return getPool().getConnection();
     }
-    
+
     /**
-     * Ferme la connexion à la base de données
+     * Ferme le pool et toutes ses connexions
      */
     public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+        synchronized (DBConnector.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
             }
-        } catch (SQLException e) {
-            System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
         }
     }
-    
+
     /**
      * Teste la connexion à la base de données
      * @return true si la connexion fonctionne, false sinon
      */
     public static boolean testConnection() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             return conn != null && !conn.isClosed();
         } catch (SQLException e) {
             return false;
         }
     }
 }
-
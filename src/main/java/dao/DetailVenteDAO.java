@@ -2,9 +2,9 @@ package dao;
 
 import controller.GestionVentesController.ProduitStats;
 import model.DetailVente;
+import model.Montant;
 import model.Produit;
 
-import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -13,6 +13,9 @@ import java.util.*;
 
 /**
  * DAO pour les détails de vente avec fonctions statistiques
+ *
+ * Les statistiques cumulées sont lues dans la table d'agrégats journaliers
+ * (voir {@link VentesRollupDAO}) quand elle existe, sinon calculées sur detailsvente.
  */
 public class DetailVenteDAO {
 
@@ -37,8 +40,8 @@ public class DetailVenteDAO {
                         rs.getInt("id_vente"),
                         rs.getInt("id_produit"),
                         rs.getInt("quantite"),
-                        rs.getBigDecimal("prix_vente_unitaire"),
-                        rs.getBigDecimal("prix_achat_unitaire")
+                        Montant.of(rs.getBigDecimal("prix_vente_unitaire")),
+                        Montant.of(rs.getBigDecimal("prix_achat_unitaire"))
                 );
                 details.add(detail);
             }
@@ -53,14 +56,19 @@ public class DetailVenteDAO {
      * Récupère les ventes totales par catégorie de produit
      * @return Map avec la catégorie comme clé et le CA comme valeur
      */
-    public Map<String, BigDecimal> getVentesParCategorie() {
-        Map<String, BigDecimal> ventesParCategorie = new LinkedHashMap<>();
-
-        String sql = "SELECT p.categorie, SUM(dv.prix_vente_unitaire * dv.quantite) as total " +
-                "FROM detailsvente dv " +
-                "INNER JOIN produits p ON dv.id_produit = p.id " +
-                "GROUP BY p.categorie " +
-                "ORDER BY total DESC";
+    public Map<String, Montant> getVentesParCategorie() {
+        Map<String, Montant> ventesParCategorie = new LinkedHashMap<>();
+
+        String sql = VentesRollupDAO.isDisponible()
+                ? "SELECT categorie, SUM(ca) as total " +
+                  "FROM ventes_rollup_jour " +
+                  "GROUP BY categorie " +
+                  "ORDER BY total DESC"
+                : "SELECT p.categorie, SUM(dv.prix_vente_unitaire * dv.quantite) as total " +
+                  "FROM detailsvente dv " +
+                  "INNER JOIN produits p ON dv.id_produit = p.id " +
+                  "GROUP BY p.categorie " +
+                  "ORDER BY total DESC";
 
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
@@ -68,14 +76,14 @@ public class DetailVenteDAO {
 
             while (rs.next()) {
                 String categorie = rs.getString("categorie");
-                BigDecimal total = rs.getBigDecimal("total");
+                Montant total = Montant.of(rs.getBigDecimal("total"));
 
                 // Si la catégorie est null ou vide, utiliser "Divers"
                 if (categorie == null || categorie.trim().isEmpty()) {
                     categorie = "Divers";
                 }
 
-                ventesParCategorie.put(categorie, total != null ? total : BigDecimal.ZERO);
+                ventesParCategorie.put(categorie, total);
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la récupération des ventes par catégorie: " + e.getMessage());
@@ -83,9 +91,9 @@ public class DetailVenteDAO {
 
         // Si aucune donnée, retourner des données par défaut pour éviter un graphique vide
         if (ventesParCategorie.isEmpty()) {
-            ventesParCategorie.put("Alimentaire", BigDecimal.ZERO);
-            ventesParCategorie.put("Boissons", BigDecimal.ZERO);
-            ventesParCategorie.put("Divers", BigDecimal.ZERO);
+            ventesParCategorie.put("Alimentaire", Montant.ZERO);
+            ventesParCategorie.put("Boissons", Montant.ZERO);
+            ventesParCategorie.put("Divers", Montant.ZERO);
         }
 
         return ventesParCategorie;
@@ -99,14 +107,23 @@ public class DetailVenteDAO {
     public List<ProduitStats> getTopProduits(int limit) {
         List<ProduitStats> topProduits = new ArrayList<>();
 
-        String sql = "SELECT p.nom, " +
-                "       SUM(dv.quantite) as quantite_totale, " +
-                "       SUM(dv.prix_vente_unitaire * dv.quantite) as ca_total " +
-                "FROM detailsvente dv " +
-                "INNER JOIN produits p ON dv.id_produit = p.id " +
-                "GROUP BY p.id, p.nom " +
-                "ORDER BY quantite_totale DESC " +
-                "LIMIT ?";
+        String sql = VentesRollupDAO.isDisponible()
+                ? "SELECT p.nom, " +
+                  "       SUM(r.quantite) as quantite_totale, " +
+                  "       SUM(r.ca) as ca_total " +
+                  "FROM ventes_rollup_jour r " +
+                  "INNER JOIN produits p ON r.id_produit = p.id " +
+                  "GROUP BY p.id, p.nom " +
+                  "ORDER BY quantite_totale DESC " +
+                  "LIMIT ?"
+                : "SELECT p.nom, " +
+                  "       SUM(dv.quantite) as quantite_totale, " +
+                  "       SUM(dv.prix_vente_unitaire * dv.quantite) as ca_total " +
+                  "FROM detailsvente dv " +
+                  "INNER JOIN produits p ON dv.id_produit = p.id " +
+                  "GROUP BY p.id, p.nom " +
+                  "ORDER BY quantite_totale DESC " +
+                  "LIMIT ?";
 
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -117,12 +134,12 @@ public class DetailVenteDAO {
             while (rs.next()) {
                 String nomProduit = rs.getString("nom");
                 int quantiteTotale = rs.getInt("quantite_totale");
-                BigDecimal caTotal = rs.getBigDecimal("ca_total");
+                Montant caTotal = Montant.of(rs.getBigDecimal("ca_total"));
 
                 ProduitStats stats = new ProduitStats(
                         nomProduit,
                         quantiteTotale,
-                        caTotal != null ? caTotal : BigDecimal.ZERO
+                        caTotal
                 );
 
                 topProduits.add(stats);
@@ -140,13 +157,21 @@ public class DetailVenteDAO {
      * @return Les statistiques du produit
      */
     public ProduitStats getStatsProduit(int produitId) {
-        String sql = "SELECT p.nom, " +
-                "       SUM(dv.quantite) as quantite_totale, " +
-                "       SUM(dv.prix_vente_unitaire * dv.quantite) as ca_total " +
-                "FROM detailsvente dv " +
-                "INNER JOIN produits p ON dv.id_produit = p.id " +
-                "WHERE p.id = ? " +
-                "GROUP BY p.id, p.nom";
+        String sql = VentesRollupDAO.isDisponible()
+                ? "SELECT p.nom, " +
+                  "       SUM(r.quantite) as quantite_totale, " +
+                  "       SUM(r.ca) as ca_total " +
+                  "FROM ventes_rollup_jour r " +
+                  "INNER JOIN produits p ON r.id_produit = p.id " +
+                  "WHERE r.id_produit = ? " +
+                  "GROUP BY p.id, p.nom"
+                : "SELECT p.nom, " +
+                  "       SUM(dv.quantite) as quantite_totale, " +
+                  "       SUM(dv.prix_vente_unitaire * dv.quantite) as ca_total " +
+                  "FROM detailsvente dv " +
+                  "INNER JOIN produits p ON dv.id_produit = p.id " +
+                  "WHERE p.id = ? " +
+                  "GROUP BY p.id, p.nom";
 
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -158,7 +183,7 @@ public class DetailVenteDAO {
                 return new ProduitStats(
                         rs.getString("nom"),
                         rs.getInt("quantite_totale"),
-                        rs.getBigDecimal("ca_total")
+                        Montant.of(rs.getBigDecimal("ca_total"))
                 );
             }
         } catch (SQLException e) {
@@ -176,14 +201,23 @@ public class DetailVenteDAO {
     public List<ProduitStats> getTopProduitsByProfit(int limit) {
         List<ProduitStats> topProduits = new ArrayList<>();
 
-        String sql = "SELECT p.nom, " +
-                "       SUM(dv.quantite) as quantite_totale, " +
-                "       SUM((dv.prix_vente_unitaire - dv.prix_achat_unitaire) * dv.quantite) as profit_total " +
-                "FROM detailsvente dv " +
-                "INNER JOIN produits p ON dv.id_produit = p.id " +
-                "GROUP BY p.id, p.nom " +
-                "ORDER BY profit_total DESC " +
-                "LIMIT ?";
+        String sql = VentesRollupDAO.isDisponible()
+                ? "SELECT p.nom, " +
+                  "       SUM(r.quantite) as quantite_totale, " +
+                  "       SUM(r.ca - r.cout) as profit_total " +
+                  "FROM ventes_rollup_jour r " +
+                  "INNER JOIN produits p ON r.id_produit = p.id " +
+                  "GROUP BY p.id, p.nom " +
+                  "ORDER BY profit_total DESC " +
+                  "LIMIT ?"
+                : "SELECT p.nom, " +
+                  "       SUM(dv.quantite) as quantite_totale, " +
+                  "       SUM((dv.prix_vente_unitaire - dv.prix_achat_unitaire) * dv.quantite) as profit_total " +
+                  "FROM detailsvente dv " +
+                  "INNER JOIN produits p ON dv.id_produit = p.id " +
+                  "GROUP BY p.id, p.nom " +
+                  "ORDER BY profit_total DESC " +
+                  "LIMIT ?";
 
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -194,12 +228,12 @@ public class DetailVenteDAO {
             while (rs.next()) {
                 String nomProduit = rs.getString("nom");
                 int quantiteTotale = rs.getInt("quantite_totale");
-                BigDecimal profitTotal = rs.getBigDecimal("profit_total");
+                Montant profitTotal = Montant.of(rs.getBigDecimal("profit_total"));
 
                 ProduitStats stats = new ProduitStats(
                         nomProduit,
                         quantiteTotale,
-                        profitTotal != null ? profitTotal : BigDecimal.ZERO
+                        profitTotal
                 );
 
                 topProduits.add(stats);
@@ -243,20 +277,19 @@ public class DetailVenteDAO {
         Map<String, Double> pourcentages = new LinkedHashMap<>();
 
         // D'abord, calculer le total global
-        String sqlTotal = "SELECT SUM(dv.prix_vente_unitaire * dv.quantite) as total_global " +
-                "FROM detailsvente dv";
+        String sqlTotal = VentesRollupDAO.isDisponible()
+                ? "SELECT SUM(ca) as total_global FROM ventes_rollup_jour"
+                : "SELECT SUM(dv.prix_vente_unitaire * dv.quantite) as total_global " +
+                  "FROM detailsvente dv";
 
-        BigDecimal totalGlobal = BigDecimal.ZERO;
+        Montant totalGlobal = Montant.ZERO;
 
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sqlTotal);
              ResultSet rs = stmt.executeQuery()) {
 
             if (rs.next()) {
-                totalGlobal = rs.getBigDecimal("total_global");
-                if (totalGlobal == null) {
-                    totalGlobal = BigDecimal.ZERO;
-                }
+                totalGlobal = Montant.of(rs.getBigDecimal("total_global"));
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors du calcul du total global: " + e.getMessage());
@@ -264,18 +297,16 @@ public class DetailVenteDAO {
         }
 
         // Si le total est zéro, retourner une map vide
-        if (totalGlobal.compareTo(BigDecimal.ZERO) == 0) {
+        if (totalGlobal.isZero()) {
             return pourcentages;
         }
 
         // Ensuite, calculer les pourcentages par catégorie
-        Map<String, BigDecimal> ventesParCategorie = getVentesParCategorie();
+        Map<String, Montant> ventesParCategorie = getVentesParCategorie();
 
-        for (Map.Entry<String, BigDecimal> entry : ventesParCategorie.entrySet()) {
-            double pourcentage = entry.getValue()
-                    .divide(totalGlobal, 4, BigDecimal.ROUND_HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .doubleValue();
+        for (Map.Entry<String, Montant> entry : ventesParCategorie.entrySet()) {
+            // Arrondi à 0,01 % près
+            double pourcentage = Math.round(entry.getValue().rapport(totalGlobal) * 10_000) / 100.0;
 
             pourcentages.put(entry.getKey(), pourcentage);
         }
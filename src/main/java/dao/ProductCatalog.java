@@ -0,0 +1,346 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import model.Produit;
+import util.Config;
+import util.TextUtil;
+
+/**
+ * Catalogue des produits en mémoire (Singleton)
+ *
+ * Chargé une fois au démarrage, il indexe les produits par id, code-barres et
+ * nom normalisé (voir {@link TextUtil#normaliser(String)}) : un scan en caisse
+ * est résolu sans aller-retour réseau. ProduitDAO et VenteDAO le tiennent à jour
+ * après chaque écriture réussie, et il est rechargé périodiquement pour prendre
+ * en compte les modifications faites depuis les autres postes.
+ *
+ * Il porte aussi l'index de recherche par nom (voir {@link ProductSearchIndex}).
+ * Les produits retournés sont des copies : les modifier n'altère pas le catalogue.
+ */
+public class ProductCatalog {
+
+    private static final ProductCatalog INSTANCE = new ProductCatalog();
+
+    private volatile Index index = null;
+
+    // Écritures reçues pendant un chargement, rejouées sur le nouvel index
+    private List<Consumer<Index>> enAttente = null;
+
+    // Rechargement demandé pendant un chargement dont la lecture est peut-être déjà faite
+    private boolean rechargementDemande = false;
+
+    private ScheduledExecutorService rafraichissement = null;
+
+    private ProductCatalog() {
+    }
+
+    /**
+     * Obtenir l'instance unique du catalogue
+     * @return Instance du catalogue
+     */
+    public static ProductCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Indique si le catalogue est chargé (sinon les DAO interrogent la base)
+     */
+    public boolean isCharge() {
+        return index != null;
+    }
+
+    /**
+     * Charge (ou recharge) tout le catalogue depuis la base
+     * @return true si le chargement a réussi, false sinon (l'ancien contenu est conservé)
+     */
+    public boolean charger() {
+        return charger(false);
+    }
+
+    /**
+     * Recharge tout le catalogue après une écriture massive (import...)
+     * Si un chargement est déjà en cours, sa lecture peut précéder l'écriture :
+     * il est alors suivi d'un nouveau chargement.
+     * @return true si le chargement a réussi ou a été programmé, false sinon
+     */
+    public boolean recharger() {
+        return charger(true);
+    }
+
+    private boolean charger(boolean force) {
+        synchronized (this) {
+            if (enAttente != null) {
+                rechargementDemande |= force;
+                return true; // chargement déjà en cours
+            }
+            enAttente = new ArrayList<>();
+        }
+
+        List<Produit> produits = null;
+        try {
+            produits = new ProduitDAO().chargerTous();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du chargement du catalogue: " + e.getMessage());
+        }
+
+        boolean encore;
+        synchronized (this) {
+            List<Consumer<Index>> modifications = enAttente;
+            enAttente = null;
+            encore = rechargementDemande;
+            rechargementDemande = false;
+            if (produits != null) {
+                Index nouvel = new Index(produits.size());
+                for (Produit p : produits) {
+                    nouvel.put(p);
+                }
+                for (Consumer<Index> m : modifications) {
+                    m.accept(nouvel);
+                }
+                index = nouvel;
+                demarrerRafraichissement();
+            }
+        }
+
+        if (produits != null) {
+            System.out.println("Catalogue chargé: " + produits.size() + " produits");
+        }
+        if (encore) {
+            return charger(false);
+        }
+        return produits != null;
+    }
+
+    /**
+     * Vide le catalogue : les DAO reviennent à la base jusqu'au prochain chargement
+     */
+    public synchronized void invalider() {
+        index = null;
+    }
+
+    // ========================================
+    // LECTURES
+    // ========================================
+
+    /**
+     * @return Copie du produit, null si absent (ou catalogue non chargé)
+     */
+    public Produit findById(int id) {
+        Index i = index;
+        return i == null ? null : copie(i.parId.get(id));
+    }
+
+    /**
+     * @return Copie du produit, null si absent (ou catalogue non chargé)
+     */
+    public Produit findByCodeBarre(String codeBarre) {
+        Index i = index;
+        if (i == null || codeBarre == null) {
+            return null;
+        }
+        return copie(i.parCodeBarre.get(codeBarre.trim()));
+    }
+
+    /**
+     * Recherche par nom, sans tenir compte de la casse ni des accents
+     * @return Copie du produit, null si absent (ou catalogue non chargé)
+     */
+    public Produit findByNom(String nom) {
+        Index i = index;
+        return i == null ? null : copie(i.parNom.get(TextUtil.normaliser(nom)));
+    }
+
+    /**
+     * Recherche par préfixes et approchée sur le nom, la catégorie et le code-barres
+     * @param requete Le texte saisi
+     * @param limite Nombre maximum de résultats
+     * @return Copies des produits les plus pertinents (liste vide si catalogue non chargé)
+     */
+    public List<Produit> rechercher(String requete, int limite) {
+        Index i = index;
+        List<Produit> produits = new ArrayList<>();
+        if (i != null) {
+            for (Produit p : i.recherche.rechercher(requete, limite)) {
+                produits.add(copie(p));
+            }
+        }
+        return produits;
+    }
+
+    /**
+     * Recherche par préfixes seulement (sans recherche approchée)
+     * @see #rechercher(String, int)
+     */
+    public List<Produit> rechercherParPrefixes(String requete, int limite) {
+        Index i = index;
+        List<Produit> produits = new ArrayList<>();
+        if (i != null) {
+            for (Produit p : i.recherche.rechercherParPrefixes(requete, limite)) {
+                produits.add(copie(p));
+            }
+        }
+        return produits;
+    }
+
+    /**
+     * Tous les produits du catalogue (copies, ordre non garanti)
+     */
+    public List<Produit> findAll() {
+        Index i = index;
+        List<Produit> produits = new ArrayList<>();
+        if (i != null) {
+            for (Produit p : i.parId.values()) {
+                produits.add(copie(p));
+            }
+        }
+        return produits;
+    }
+
+    public int size() {
+        Index i = index;
+        return i == null ? 0 : i.parId.size();
+    }
+
+    // ========================================
+    // MISES À JOUR (appelées par les DAO après écriture réussie)
+    // ========================================
+
+    /**
+     * Ajoute ou remplace un produit
+     */
+    public void mettreAJour(Produit produit) {
+        if (produit == null) {
+            return;
+        }
+        Produit p = copie(produit);
+        appliquer(i -> i.put(p));
+    }
+
+    /**
+     * Retire un produit
+     */
+    public void retirer(int id) {
+        appliquer(i -> i.remove(id));
+    }
+
+    /**
+     * Fixe la quantité en stock d'un produit
+     */
+    public void definirStock(int id, int quantite) {
+        appliquer(i -> i.setStock(id, quantite));
+    }
+
+    /**
+     * Ajoute (ou retire, si negatif) une quantité au stock d'un produit
+     * L'ajustement est converti en valeur absolue : rejoué après un chargement,
+     * un delta serait compté deux fois si la lecture l'incluait déjà.
+     */
+    public synchronized void ajusterStock(int id, int delta) {
+        Index i = index;
+        Produit p = i == null ? null : i.parId.get(id);
+        if (p != null) {
+            definirStock(id, p.getQuantiteStock() + delta);
+        }
+    }
+
+    private synchronized void appliquer(Consumer<Index> modification) {
+        if (enAttente != null) {
+            enAttente.add(modification);
+        }
+        Index i = index;
+        if (i != null) {
+            modification.accept(i);
+        }
+    }
+
+    private void demarrerRafraichissement() {
+        if (rafraichissement != null || Config.CATALOGUE_RAFRAICHISSEMENT_MS <= 0) {
+            return;
+        }
+        rafraichissement = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalogue-rafraichissement");
+            t.setDaemon(true);
+            return t;
+        });
+        rafraichissement.scheduleWithFixedDelay(this::charger,
+                Config.CATALOGUE_RAFRAICHISSEMENT_MS, Config.CATALOGUE_RAFRAICHISSEMENT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Produit copie(Produit p) {
+        if (p == null) {
+            return null;
+        }
+        Produit copie = new Produit(p.getId(), p.getCodeBarre(), p.getNom(), p.getCategorie(),
+                p.getPrixAchatActuel(), p.getPrixVenteDefaut(), p.getQuantiteStock(),
+                p.getUnite(), p.getSeuilAlerte());
+        copie.setFamille(p.getFamille());
+        return copie;
+    }
+
+    /**
+     * Index par id, code-barres, nom normalisé et texte. Les lectures se font sans verrou,
+     * les écritures sous le verrou du catalogue.
+     */
+    private static final class Index {
+        private final Map<Integer, Produit> parId;
+        private final Map<String, Produit> parCodeBarre;
+        private final Map<String, Produit> parNom;
+        private final ProductSearchIndex recherche = new ProductSearchIndex();
+
+        Index(int taille) {
+            int capacite = Math.max(16, taille * 4 / 3 + 1);
+            parId = new ConcurrentHashMap<>(capacite);
+            parCodeBarre = new ConcurrentHashMap<>(capacite);
+            parNom = new ConcurrentHashMap<>(capacite);
+        }
+
+        void put(Produit p) {
+            Produit ancien = parId.put(p.getId(), p);
+            if (ancien != null) {
+                retirerCles(ancien);
+            }
+            if (p.getCodeBarre() != null && !p.getCodeBarre().trim().isEmpty()) {
+                parCodeBarre.put(p.getCodeBarre().trim(), p);
+            }
+            String nom = TextUtil.normaliser(p.getNom());
+            if (!nom.isEmpty()) {
+                parNom.put(nom, p);
+            }
+            recherche.ajouter(p);
+        }
+
+        void remove(int id) {
+            Produit ancien = parId.remove(id);
+            if (ancien != null) {
+                retirerCles(ancien);
+                recherche.retirer(id);
+            }
+        }
+
+        void setStock(int id, int quantite) {
+            Produit ancien = parId.get(id);
+            if (ancien == null) {
+                return;
+            }
+            Produit p = copie(ancien);
+            p.setQuantiteStock(quantite);
+            put(p);
+        }
+
+        private void retirerCles(Produit ancien) {
+            if (ancien.getCodeBarre() != null) {
+                parCodeBarre.remove(ancien.getCodeBarre().trim(), ancien);
+            }
+            parNom.remove(TextUtil.normaliser(ancien.getNom()), ancien);
+        }
+    }
+}
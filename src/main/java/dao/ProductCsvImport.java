@@ -0,0 +1,424 @@
+package dao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import model.Montant;
+import model.Produit;
+import util.Config;
+
+/**
+ * Import en masse de produits depuis un fichier CSV (catalogue fournisseur)
+ *
+ * Première ligne : en-tête avec les colonnes code_barre, nom, prix_achat,
+ * prix_vente (obligatoires) et categorie, quantite_stock, unite, seuil_alerte
+ * (facultatives), dans n'importe quel ordre. Séparateur ';' ou ',' (déduit de
+ * l'en-tête), valeurs entre guillemets acceptées, virgule décimale acceptée.
+ *
+ * Déroulement :
+ * - les lignes sont analysées et validées en parallèle sur tous les cœurs ;
+ * - les codes-barres en double dans le fichier sont écartés en mémoire
+ *   (la première occurrence est gardée) ;
+ * - l'écriture se fait par INSERT ... ON DUPLICATE KEY UPDATE de
+ *   Config.IMPORT_LIGNES_PAR_REQUETE lignes, une transaction par lot : un
+ *   produit existant (même code-barres) est mis à jour, seules les colonnes
+ *   présentes dans l'en-tête étant remplacées (stock, unité, seuil et
+ *   catégorie absents du fichier sont conservés) ;
+ * - si un lot est refusé, ses lignes sont réessayées une par une pour
+ *   identifier les lignes fautives ;
+ * - le catalogue en mémoire est rechargé une seule fois, à la fin.
+ *
+ * Chaque ligne écartée figure dans le rapport avec son numéro et la raison.
+ */
+public class ProductCsvImport {
+
+    /**
+     * Suivi de l'avancement, appelé depuis le thread de l'import
+     */
+    @FunctionalInterface
+    public interface Progression {
+        /**
+         * @param traitees Produits déjà écrits (ou écartés à l'écriture)
+         * @param total Produits valides à écrire
+         */
+        void avancer(int traitees, int total);
+    }
+
+    /**
+     * Ligne du fichier écartée
+     */
+    public static final class Erreur {
+        private final int ligne;
+        private final String message;
+
+        Erreur(int ligne, String message) {
+            this.ligne = ligne;
+            this.message = message;
+        }
+
+        /**
+         * Numéro de la ligne dans le fichier (1 = en-tête)
+         */
+        public int getLigne() {
+            return ligne;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Bilan d'un import
+     */
+    public static final class Rapport {
+        private final int lignesLues;
+        private final int produitsImportes;
+        private final List<Erreur> erreurs;
+
+        Rapport(int lignesLues, int produitsImportes, List<Erreur> erreurs) {
+            this.lignesLues = lignesLues;
+            this.produitsImportes = produitsImportes;
+            this.erreurs = erreurs;
+        }
+
+        /**
+         * Lignes de données du fichier (hors en-tête et lignes vides)
+         */
+        public int getLignesLues() {
+            return lignesLues;
+        }
+
+        /**
+         * Produits créés ou mis à jour
+         */
+        public int getProduitsImportes() {
+            return produitsImportes;
+        }
+
+        /**
+         * Lignes écartées, triées par numéro
+         */
+        public List<Erreur> getErreurs() {
+            return erreurs;
+        }
+
+        /**
+         * Écrit les erreurs dans un fichier CSV (ligne;erreur)
+         */
+        public void ecrireErreurs(Path fichier) throws IOException {
+            try (BufferedWriter sortie = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+                sortie.write("ligne;erreur\n");
+                for (Erreur e : erreurs) {
+                    sortie.write(e.getLigne() + ";\"" + e.getMessage().replace("\"", "\"\"") + "\"\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Résultat de l'analyse d'une ligne : un produit ou une erreur
+     */
+    private static final class Ligne {
+        final int numero;
+        final Produit produit;
+        final String erreur;
+
+        Ligne(int numero, Produit produit, String erreur) {
+            this.numero = numero;
+            this.produit = produit;
+            this.erreur = erreur;
+        }
+    }
+
+    private static final int SEUIL_ALERTE_DEFAUT = 10; // valeur par défaut de la colonne en base
+
+    private int colCodeBarre = -1;
+    private int colNom = -1;
+    private int colCategorie = -1;
+    private int colPrixAchat = -1;
+    private int colPrixVente = -1;
+    private int colStock = -1;
+    private int colUnite = -1;
+    private int colSeuil = -1;
+    private char separateur;
+
+    /**
+     * Importe un fichier CSV de produits
+     * @param fichier Le fichier (UTF-8)
+     * @param progression Suivi de l'avancement (peut être null)
+     * @return Le bilan, avec les lignes écartées
+     * @throws IOException Si le fichier est illisible ou que son en-tête est invalide
+     */
+    public Rapport importer(Path fichier, Progression progression) throws IOException {
+        List<String> lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        if (lignes.isEmpty()) {
+            throw new IOException("Fichier vide");
+        }
+        lireEnTete(lignes.get(0));
+
+        // Analyse et validation en parallèle (résultats rangés par numéro de ligne)
+        Ligne[] analysees = IntStream.range(1, lignes.size())
+                .parallel()
+                .filter(i -> !lignes.get(i).isBlank())
+                .mapToObj(i -> analyser(i + 1, lignes.get(i)))
+                .toArray(Ligne[]::new);
+
+        // Dédoublonnage des codes-barres en mémoire, dans l'ordre du fichier
+        List<Erreur> erreurs = new ArrayList<>();
+        Map<String, Integer> premiereLigne = new HashMap<>(analysees.length * 2);
+        List<Ligne> aEcrire = new ArrayList<>(analysees.length);
+        for (Ligne l : analysees) {
+            if (l.erreur != null) {
+                erreurs.add(new Erreur(l.numero, l.erreur));
+                continue;
+            }
+            Integer premiere = premiereLigne.putIfAbsent(l.produit.getCodeBarre(), l.numero);
+            if (premiere != null) {
+                erreurs.add(new Erreur(l.numero, "Code-barres " + l.produit.getCodeBarre()
+                        + " déjà présent ligne " + premiere));
+                continue;
+            }
+            aEcrire.add(l);
+        }
+
+        int importes = ecrire(aEcrire, erreurs, progression);
+        if (importes > 0) {
+            ProductCatalog.getInstance().recharger();
+        }
+
+        erreurs.sort((a, b) -> Integer.compare(a.getLigne(), b.getLigne()));
+        return new Rapport(analysees.length, importes, erreurs);
+    }
+
+    private void lireEnTete(String enTete) throws IOException {
+        if (!enTete.isEmpty() && enTete.charAt(0) == '\uFEFF') {
+            enTete = enTete.substring(1);
+        }
+        separateur = enTete.indexOf(';') >= 0 ? ';' : ',';
+        List<String> colonnes = decouper(enTete);
+        for (int i = 0; i < colonnes.size(); i++) {
+            switch (colonnes.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "code_barre": colCodeBarre = i; break;
+                case "nom": colNom = i; break;
+                case "categorie": colCategorie = i; break;
+                case "prix_achat": colPrixAchat = i; break;
+                case "prix_vente": colPrixVente = i; break;
+                case "quantite_stock": colStock = i; break;
+                case "unite": colUnite = i; break;
+                case "seuil_alerte": colSeuil = i; break;
+                default: break;
+            }
+        }
+        if (colCodeBarre < 0 || colNom < 0 || colPrixAchat < 0 || colPrixVente < 0) {
+            throw new IOException("En-tête invalide : colonnes code_barre, nom, prix_achat et prix_vente obligatoires");
+        }
+    }
+
+    /**
+     * Analyse une ligne de données (sans état partagé : appelée en parallèle)
+     */
+    private Ligne analyser(int numero, String texte) {
+        List<String> valeurs = decouper(texte);
+        try {
+            String codeBarre = valeur(valeurs, colCodeBarre);
+            String nom = valeur(valeurs, colNom);
+            if (codeBarre.isEmpty()) {
+                return new Ligne(numero, null, "Code-barres vide");
+            }
+            if (nom.isEmpty()) {
+                return new Ligne(numero, null, "Nom vide");
+            }
+            Montant prixAchat = Montant.parse(valeur(valeurs, colPrixAchat));
+            Montant prixVente = Montant.parse(valeur(valeurs, colPrixVente));
+            String stock = valeur(valeurs, colStock);
+            String seuil = valeur(valeurs, colSeuil);
+            int quantiteStock = stock.isEmpty() ? 0 : Integer.parseInt(stock);
+            int seuilAlerte = seuil.isEmpty() ? SEUIL_ALERTE_DEFAUT : Integer.parseInt(seuil);
+            if (prixAchat.signum() < 0 || prixVente.signum() < 0 || quantiteStock < 0 || seuilAlerte < 0) {
+                return new Ligne(numero, null, "Valeur négative");
+            }
+            String unite = valeur(valeurs, colUnite);
+            return new Ligne(numero, new Produit(codeBarre, nom, valeur(valeurs, colCategorie),
+                    prixAchat, prixVente, quantiteStock, unite.isEmpty() ? null : unite, seuilAlerte), null);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return new Ligne(numero, null, "Nombre invalide (prix, stock ou seuil)");
+        }
+    }
+
+    private static String valeur(List<String> valeurs, int colonne) {
+        return colonne >= 0 && colonne < valeurs.size() ? valeurs.get(colonne).trim() : "";
+    }
+
+    /**
+     * Découpe une ligne CSV (guillemets doublés pour un guillemet littéral)
+     */
+    private List<String> decouper(String ligne) {
+        List<String> valeurs = new ArrayList<>();
+        StringBuilder courante = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                    courante.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreGuillemets = false;
+                } else {
+                    courante.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                valeurs.add(courante.toString());
+                courante.setLength(0);
+            } else {
+                courante.append(c);
+            }
+        }
+        valeurs.add(courante.toString());
+        return valeurs;
+    }
+
+    /**
+     * Écrit les produits par lots, une transaction par lot
+     * @return Nombre de produits écrits
+     */
+    private int ecrire(List<Ligne> lignes, List<Erreur> erreurs, Progression progression) {
+        boolean hasCategorie = SchemaRegistry.hasColumn("produits", "categorie");
+        boolean hasUnite = SchemaRegistry.hasColumn("produits", "unite");
+        boolean hasFamille = SchemaRegistry.hasColumn("produits", "famille");
+
+        List<String> colonnes = new ArrayList<>(List.of("code_barre", "nom"));
+        if (hasCategorie) {
+            colonnes.add("categorie");
+        }
+        colonnes.addAll(List.of("prix_achat_actuel", "prix_vente_defaut", "quantite_stock"));
+        if (hasUnite) {
+            colonnes.add("unite");
+        }
+        colonnes.add("seuil_alerte");
+        if (hasFamille) {
+            colonnes.add("famille");
+        }
+
+        StringBuilder miseAJour = new StringBuilder();
+        for (String c : colonnes) {
+            if (!estDansFichier(c)) {
+                continue;
+            }
+            miseAJour.append(miseAJour.length() == 0 ? "" : ", ").append(c).append(" = VALUES(").append(c).append(')');
+        }
+        String debutSql = "INSERT INTO produits (" + String.join(", ", colonnes) + ") VALUES ";
+        String ligneSql = "(" + String.join(", ", Collections.nCopies(colonnes.size(), "?")) + ")";
+        String finSql = " ON DUPLICATE KEY UPDATE " + miseAJour;
+
+        int ecrits = 0;
+        int traitees = 0;
+        int lot = Config.IMPORT_LIGNES_PAR_REQUETE;
+        try (Connection conn = DBConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int debut = 0; debut < lignes.size(); debut += lot) {
+                    List<Ligne> paquet = lignes.subList(debut, Math.min(debut + lot, lignes.size()));
+                    String sql = debutSql + String.join(", ", Collections.nCopies(paquet.size(), ligneSql)) + finSql;
+                    try {
+                        executer(conn, sql, paquet, hasCategorie, hasUnite, hasFamille);
+                        conn.commit();
+                        ecrits += paquet.size();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        // Lot refusé : ligne par ligne pour trouver les lignes fautives
+                        String sqlUnitaire = debutSql + ligneSql + finSql;
+                        for (Ligne l : paquet) {
+                            try {
+                                executer(conn, sqlUnitaire, List.of(l), hasCategorie, hasUnite, hasFamille);
+                                conn.commit();
+                                ecrits++;
+                            } catch (SQLException ex) {
+                                conn.rollback();
+                                erreurs.add(new Erreur(l.numero, ex.getMessage()));
+                            }
+                        }
+                    }
+                    traitees += paquet.size();
+                    if (progression != null) {
+                        progression.avancer(traitees, lignes.size());
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de l'import des produits: " + e.getMessage());
+            for (Ligne l : lignes.subList(traitees, lignes.size())) {
+                erreurs.add(new Erreur(l.numero, "Non importée: " + e.getMessage()));
+            }
+        }
+        return ecrits;
+    }
+
+    /**
+     * Colonne mise à jour pour un produit existant : seulement si le fichier la
+     * fournit (une valeur par défaut n'écrase pas la donnée en base)
+     */
+    private boolean estDansFichier(String colonne) {
+        switch (colonne) {
+            case "nom":
+            case "prix_achat_actuel":
+            case "prix_vente_defaut":
+                return true;
+            case "categorie":
+            case "famille": // déduite de la catégorie
+                return colCategorie >= 0;
+            case "quantite_stock":
+                return colStock >= 0;
+            case "unite":
+                return colUnite >= 0;
+            case "seuil_alerte":
+                return colSeuil >= 0;
+            default:
+                return false; // code_barre : clé de la mise à jour
+        }
+    }
+
+    private static void executer(Connection conn, String sql, List<Ligne> paquet,
+                                 boolean hasCategorie, boolean hasUnite, boolean hasFamille) throws SQLException {
+        try (PreparedStatement stmt = StatementCache.prepareUncached(conn, sql)) {
+            int p = 1;
+            for (Ligne l : paquet) {
+                Produit produit = l.produit;
+                stmt.setString(p++, produit.getCodeBarre());
+                stmt.setString(p++, produit.getNom());
+                if (hasCategorie) {
+                    stmt.setString(p++, produit.getCategorie() != null ? produit.getCategorie() : "");
+                }
+                stmt.setBigDecimal(p++, produit.getPrixAchatActuel().toBigDecimal());
+                stmt.setBigDecimal(p++, produit.getPrixVenteDefaut().toBigDecimal());
+                stmt.setInt(p++, produit.getQuantiteStock());
+                if (hasUnite) {
+                    stmt.setString(p++, produit.getUnite());
+                }
+                stmt.setInt(p++, produit.getSeuilAlerte());
+                if (hasFamille) {
+                    stmt.setInt(p++, produit.getFamille());
+                }
+            }
+            stmt.executeUpdate();
+        }
+    }
+}
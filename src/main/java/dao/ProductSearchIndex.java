@@ -0,0 +1,427 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import model.Produit;
+import util.TextUtil;
+
+/**
+ * Index de recherche plein texte sur les produits, tenu à jour par le {@link ProductCatalog}
+ *
+ * - les noms et catégories sont normalisés (minuscules, sans accents) puis découpés en mots;
+ * - un arbre de préfixes (trie) sur les mots et les codes-barres donne les produits
+ *   dont chaque mot de la requête commence un mot indexé ("choc noi" -> "Chocolat noir");
+ * - une requête d'un seul mot retrouve aussi les codes-barres qui la contiennent
+ *   (index des sous-chaînes de 3 caractères des codes);
+ * - si rien ne correspond, un index de trigrammes retrouve les noms proches malgré
+ *   une faute de frappe ("cocacola" -> "Coca-Cola");
+ * - les résultats sont classés par pertinence et seuls les K meilleurs sont conservés.
+ *
+ * Plusieurs lecteurs peuvent rechercher en parallèle; les ajouts/retraits sont incrémentaux.
+ */
+public class ProductSearchIndex {
+
+    private static final Pattern SEPARATEURS = Pattern.compile("[^a-z0-9]+");
+
+    /** Similarité minimale (coefficient de Dice sur les trigrammes) pour la recherche approchée */
+    private static final double SIMILARITE_MIN = 0.35;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Noeud racine = new Noeud();
+    private final Map<String, Set<Integer>> trigrammes = new HashMap<>();
+    private final Map<String, Set<Integer>> trigrammesCode = new HashMap<>();
+
+    ProductSearchIndex() {
+    }
+
+    /**
+     * Ajoute ou remplace un produit dans l'index
+     */
+    void ajouter(Produit produit) {
+        Document doc = new Document(produit);
+        verrou.writeLock().lock();
+        try {
+            Document ancien = documents.put(doc.id, doc);
+            if (ancien != null) {
+                desindexer(ancien);
+            }
+            for (String mot : doc.mots) {
+                racine.inserer(mot, 0, doc.id);
+            }
+            for (String t : doc.trigrammes) {
+                trigrammes.computeIfAbsent(t, k -> new HashSet<>()).add(doc.id);
+            }
+            for (String t : sousChaines(doc.codeNormalise)) {
+                trigrammesCode.computeIfAbsent(t, k -> new HashSet<>()).add(doc.id);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un produit de l'index
+     */
+    void retirer(int id) {
+        verrou.writeLock().lock();
+        try {
+            Document ancien = documents.remove(id);
+            if (ancien != null) {
+                desindexer(ancien);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les produits correspondant à la requête
+     * @param requete Texte saisi (nom, début de nom, catégorie ou code-barres)
+     * @param limite Nombre maximum de résultats
+     * @return Les produits les plus pertinents, du meilleur au moins bon (instances de l'index)
+     */
+    List<Produit> rechercher(String requete, int limite) {
+        return rechercher(requete, limite, true);
+    }
+
+    /**
+     * Recherche par préfixes uniquement : chaque mot de la requête commence un mot
+     * du nom, de la catégorie ou du code-barres (ni partie de code, ni faute de frappe)
+     * @see #rechercher(String, int)
+     */
+    List<Produit> rechercherParPrefixes(String requete, int limite) {
+        return rechercher(requete, limite, false);
+    }
+
+    private List<Produit> rechercher(String requete, int limite, boolean etendue) {
+        String q = TextUtil.normaliser(requete);
+        if (q.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+        String[] motsRequete = decouper(q);
+
+        verrou.readLock().lock();
+        try {
+            PriorityQueue<Resultat> meilleurs = new PriorityQueue<>(Math.min(limite, documents.size()) + 1, Resultat.ORDRE);
+
+            // 1. Correspondance par préfixes : chaque mot de la requête doit commencer un mot indexé
+            Set<Integer> candidats = null;
+            for (String mot : motsRequete) {
+                Set<Integer> ids = new HashSet<>();
+                Noeud n = racine.trouver(mot);
+                if (n != null) {
+                    n.collecter(ids);
+                }
+                if (candidats == null) {
+                    candidats = ids;
+                } else {
+                    candidats.retainAll(ids);
+                }
+                if (candidats.isEmpty()) {
+                    break;
+                }
+            }
+            if (candidats != null) {
+                for (Integer id : candidats) {
+                    Document doc = documents.get(id);
+                    garder(meilleurs, new Resultat(doc, scorer(doc, q, motsRequete)), limite);
+                }
+            }
+
+            // 2. Code-barres contenant la requête (saisie d'une partie du code)
+            if (etendue && motsRequete.length == 1) {
+                for (Document doc : codesContenant(q)) {
+                    if ((candidats == null || !candidats.contains(doc.id)) && doc.codeNormalise.contains(q)) {
+                        garder(meilleurs, new Resultat(doc, 10), limite);
+                    }
+                }
+            }
+
+            // 3. Recherche approchée seulement si rien ne correspond exactement
+            if (etendue && meilleurs.isEmpty()) {
+                rechercherApproche(q, meilleurs, limite);
+            }
+
+            List<Resultat> tries = new ArrayList<>(meilleurs);
+            tries.sort(Collections.reverseOrder(Resultat.ORDRE));
+            List<Produit> produits = new ArrayList<>(tries.size());
+            for (Resultat r : tries) {
+                produits.add(r.doc.produit);
+            }
+            return produits;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        verrou.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Produits dont le code-barres peut contenir q : ceux qui ont le moins fréquent
+     * des trigrammes de q (à vérifier par l'appelant); parcours complet sous 3 caractères
+     */
+    private Collection<Document> codesContenant(String q) {
+        if (q.length() < 3) {
+            return documents.values();
+        }
+        Set<Integer> plusPetit = null;
+        for (String t : sousChaines(q)) {
+            Set<Integer> ids = trigrammesCode.get(t);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            if (plusPetit == null || ids.size() < plusPetit.size()) {
+                plusPetit = ids;
+            }
+        }
+        List<Document> docs = new ArrayList<>(plusPetit.size());
+        for (Integer id : plusPetit) {
+            docs.add(documents.get(id));
+        }
+        return docs;
+    }
+
+    private void rechercherApproche(String q, PriorityQueue<Resultat> meilleurs, int limite) {
+        Set<String> trigrammesRequete = trigrammesDe(q);
+        if (trigrammesRequete.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> communs = new HashMap<>();
+        for (String t : trigrammesRequete) {
+            Set<Integer> ids = trigrammes.get(t);
+            if (ids != null) {
+                for (Integer id : ids) {
+                    communs.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> e : communs.entrySet()) {
+            Document doc = documents.get(e.getKey());
+            double similarite = 2.0 * e.getValue() / (trigrammesRequete.size() + doc.trigrammes.size());
+            if (similarite >= SIMILARITE_MIN) {
+                garder(meilleurs, new Resultat(doc, 100 * similarite), limite);
+            }
+        }
+    }
+
+    /**
+     * Pertinence d'un produit trouvé par préfixes : code-barres exact, nom exact,
+     * nom commençant par la requête, puis mots du nom avant ceux de la catégorie
+     */
+    private static double scorer(Document doc, String q, String[] motsRequete) {
+        if (q.equals(doc.codeBarre)) {
+            return 1000;
+        }
+        double score = 0;
+        if (q.equals(doc.nom)) {
+            score += 900;
+        } else if (doc.nom.startsWith(q)) {
+            score += 700;
+        }
+        for (String mot : motsRequete) {
+            score += scorerMot(doc, mot);
+        }
+        // À pertinence égale, les noms courts d'abord
+        return score - doc.nom.length() / 100.0;
+    }
+
+    private static double scorerMot(Document doc, String mot) {
+        for (int i = 0; i < doc.motsNom.length; i++) {
+            if (doc.motsNom[i].startsWith(mot)) {
+                double position = Math.max(0, 10 - i);
+                return (doc.motsNom[i].length() == mot.length() ? 40 : 25) + position;
+            }
+        }
+        return 10; // catégorie ou code-barres
+    }
+
+    private static void garder(PriorityQueue<Resultat> meilleurs, Resultat r, int limite) {
+        meilleurs.offer(r);
+        if (meilleurs.size() > limite) {
+            meilleurs.poll();
+        }
+    }
+
+    private void desindexer(Document doc) {
+        for (String mot : doc.mots) {
+            racine.retirer(mot, 0, doc.id);
+        }
+        for (String t : doc.trigrammes) {
+            Set<Integer> ids = trigrammes.get(t);
+            if (ids != null) {
+                ids.remove(doc.id);
+                if (ids.isEmpty()) {
+                    trigrammes.remove(t);
+                }
+            }
+        }
+        for (String t : sousChaines(doc.codeNormalise)) {
+            Set<Integer> ids = trigrammesCode.get(t);
+            if (ids != null) {
+                ids.remove(doc.id);
+                if (ids.isEmpty()) {
+                    trigrammesCode.remove(t);
+                }
+            }
+        }
+    }
+
+    private static String[] decouper(String texteNormalise) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : SEPARATEURS.split(texteNormalise)) {
+            if (!mot.isEmpty()) {
+                mots.add(mot);
+            }
+        }
+        return mots.toArray(new String[0]);
+    }
+
+    /**
+     * Sous-chaînes de 3 caractères d'un code (sans découpage en mots)
+     */
+    private static Set<String> sousChaines(String code) {
+        Set<String> resultat = new HashSet<>();
+        for (int i = 0; i + 3 <= code.length(); i++) {
+            resultat.add(code.substring(i, i + 3));
+        }
+        return resultat;
+    }
+
+    private static Set<String> trigrammesDe(String texteNormalise) {
+        String compact = " " + String.join(" ", decouper(texteNormalise)) + " ";
+        Set<String> resultat = new HashSet<>();
+        for (int i = 0; i + 3 <= compact.length(); i++) {
+            resultat.add(compact.substring(i, i + 3));
+        }
+        return resultat;
+    }
+
+    /**
+     * Produit tel qu'indexé
+     */
+    private static final class Document {
+        private final int id;
+        private final Produit produit;
+        private final String nom;
+        private final String codeBarre;
+        private final String codeNormalise;
+        private final String[] motsNom;
+        private final Set<String> mots = new HashSet<>();
+        private final Set<String> trigrammes;
+
+        Document(Produit produit) {
+            this.id = produit.getId();
+            this.produit = produit;
+            this.nom = TextUtil.normaliser(produit.getNom());
+            this.codeBarre = produit.getCodeBarre() != null ? produit.getCodeBarre().trim() : "";
+            this.codeNormalise = TextUtil.normaliser(codeBarre);
+            this.motsNom = decouper(nom);
+            Collections.addAll(mots, motsNom);
+            Collections.addAll(mots, decouper(TextUtil.normaliser(produit.getCategorie())));
+            if (!codeNormalise.isEmpty()) {
+                mots.add(codeNormalise);
+            }
+            this.trigrammes = trigrammesDe(nom);
+        }
+    }
+
+    private static final class Resultat {
+        static final Comparator<Resultat> ORDRE = Comparator
+                .comparingDouble((Resultat r) -> r.score)
+                .thenComparing(r -> r.doc.nom, Comparator.reverseOrder())
+                .thenComparingInt(r -> -r.doc.id);
+
+        private final Document doc;
+        private final double score;
+
+        Resultat(Document doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Noeud de l'arbre de préfixes; ids contient les produits dont un mot se termine ici
+     */
+    private static final class Noeud {
+        private Map<Character, Noeud> enfants;
+        private Set<Integer> ids;
+
+        void inserer(String mot, int pos, int id) {
+            if (pos == mot.length()) {
+                if (ids == null) {
+                    ids = new HashSet<>(2);
+                }
+                ids.add(id);
+                return;
+            }
+            if (enfants == null) {
+                enfants = new HashMap<>(4);
+            }
+            enfants.computeIfAbsent(mot.charAt(pos), c -> new Noeud()).inserer(mot, pos + 1, id);
+        }
+
+        /**
+         * @return true si ce noeud est devenu vide (et peut être supprimé par son parent)
+         */
+        boolean retirer(String mot, int pos, int id) {
+            if (pos == mot.length()) {
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        ids = null;
+                    }
+                }
+            } else if (enfants != null) {
+                Noeud enfant = enfants.get(mot.charAt(pos));
+                if (enfant != null && enfant.retirer(mot, pos + 1, id)) {
+                    enfants.remove(mot.charAt(pos));
+                    if (enfants.isEmpty()) {
+                        enfants = null;
+                    }
+                }
+            }
+            return ids == null && enfants == null;
+        }
+
+        Noeud trouver(String prefixe) {
+            Noeud n = this;
+            for (int i = 0; i < prefixe.length() && n != null; i++) {
+                n = n.enfants != null ? n.enfants.get(prefixe.charAt(i)) : null;
+            }
+            return n;
+        }
+
+        void collecter(Set<Integer> resultat) {
+            if (ids != null) {
+                resultat.addAll(ids);
+            }
+            if (enfants != null) {
+                for (Noeud enfant : enfants.values()) {
+                    enfant.collecter(resultat);
+                }
+            }
+        }
+    }
+}
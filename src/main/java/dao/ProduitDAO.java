@@ -8,6 +8,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import model.Montant;
 import model.Produit;
 
 /**
@@ -20,6 +21,19 @@ public class ProduitDAO {
      * @return Liste de tous les produits
      */
     public List<Produit> findAll() {
+        try {
+            return chargerTous();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la récupération des produits: " + e.getMessage());
+        }
+        
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Lit tous les produits en propageant l'erreur (utilisé pour charger le catalogue)
+     */
+    List<Produit> chargerTous() throws SQLException {
         List<Produit> produits = new ArrayList<>();
         String sql = "SELECT * FROM produits ORDER BY nom";
         
@@ -30,8 +44,6 @@ public class ProduitDAO {
             while (rs.next()) {
                 produits.add(mapResultSetToProduit(rs));
             }
-        } catch (SQLException e) {
-            System.err.println("Erreur lors de la récupération des produits: " + e.getMessage());
         }
         
         return produits;
@@ -43,6 +55,12 @@ public class ProduitDAO {
      * @return Le produit trouvé, null sinon
      */
     public Produit findById(int id) {
+        ProductCatalog catalogue = ProductCatalog.getInstance();
+        Produit enCache = catalogue.findById(id);
+        if (enCache != null) {
+            return enCache;
+        }
+        
         String sql = "SELECT * FROM produits WHERE id = ?";
         
         try (Connection conn = DBConnector.getConnection();
@@ -52,7 +70,7 @@ public class ProduitDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToProduit(rs);
+                return enregistrer(catalogue, mapResultSetToProduit(rs));
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la recherche de produit: " + e.getMessage());
@@ -67,6 +85,13 @@ public class ProduitDAO {
      * @return Le produit trouvé, null sinon
      */
     public Produit findByCodeBarre(String codeBarre) {
+        // Résolution en mémoire; la base n'est interrogée que si le produit est inconnu du catalogue
+        ProductCatalog catalogue = ProductCatalog.getInstance();
+        Produit enCache = catalogue.findByCodeBarre(codeBarre);
+        if (enCache != null) {
+            return enCache;
+        }
+        
         String sql = "SELECT * FROM produits WHERE code_barre = ?";
         
         try (Connection conn = DBConnector.getConnection();
@@ -76,7 +101,7 @@ public class ProduitDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToProduit(rs);
+                return enregistrer(catalogue, mapResultSetToProduit(rs));
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la recherche de produit par code-barres: " + e.getMessage());
@@ -91,6 +116,12 @@ public class ProduitDAO {
      * @return Le produit trouvé, null sinon
      */
     public Produit findByNomExact(String nom) {
+        ProductCatalog catalogue = ProductCatalog.getInstance();
+        Produit enCache = catalogue.findByNom(nom);
+        if (enCache != null) {
+            return enCache;
+        }
+        
         String sql = "SELECT * FROM produits WHERE nom = ?";
         
         try (Connection conn = DBConnector.getConnection();
@@ -100,7 +131,7 @@ public class ProduitDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToProduit(rs);
+                return enregistrer(catalogue, mapResultSetToProduit(rs));
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la recherche de produit par nom: " + e.getMessage());
@@ -115,6 +146,16 @@ public class ProduitDAO {
      * @return Le produit trouvé, null sinon
      */
     public Produit rechercherProduit(String recherche) {
+        // Catalogue en mémoire d'abord (code-barres puis nom), sans aucune requête
+        ProductCatalog catalogue = ProductCatalog.getInstance();
+        Produit enCache = catalogue.findByCodeBarre(recherche);
+        if (enCache == null) {
+            enCache = catalogue.findByNom(recherche);
+        }
+        if (enCache != null) {
+            return enCache;
+        }
+        
         // Essayer d'abord par code-barres
         Produit produit = findByCodeBarre(recherche);
         if (produit != null) {
@@ -126,6 +167,89 @@ public class ProduitDAO {
         return produit;
     }
     
+    /**
+     * Recherche plein texte sans limite de nombre (filtres des écrans d'administration)
+     * @param recherche Le texte saisi
+     * @return Tous les produits trouvés, les plus pertinents d'abord
+     */
+    public List<Produit> rechercher(String recherche) {
+        return rechercher(recherche, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Recherche plein texte (nom, catégorie, code-barres) classée par pertinence
+     * Utilise l'index du catalogue en mémoire; à défaut, une recherche LIKE en base
+     * @param recherche Le texte saisi
+     * @param limite Nombre maximum de résultats
+     * @return Les produits trouvés, les plus pertinents d'abord
+     */
+    public List<Produit> rechercher(String recherche, int limite) {
+        ProductCatalog catalogue = ProductCatalog.getInstance();
+        if (catalogue.isCharge()) {
+            return catalogue.rechercher(recherche, limite);
+        }
+        
+        List<Produit> produits = new ArrayList<>();
+        boolean hasCategorie = SchemaRegistry.hasColumn("produits", "categorie");
+        String sql = "SELECT * FROM produits WHERE nom LIKE ? OR code_barre LIKE ?" +
+                     (hasCategorie ? " OR categorie LIKE ?" : "") + " ORDER BY nom LIMIT ?";
+        
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            String motif = "%" + recherche.trim() + "%";
+            int paramIndex = 1;
+            stmt.setString(paramIndex++, motif);
+            stmt.setString(paramIndex++, motif);
+            if (hasCategorie) {
+                stmt.setString(paramIndex++, motif);
+            }
+            stmt.setInt(paramIndex++, limite);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                produits.add(mapResultSetToProduit(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche de produits: " + e.getMessage());
+        }
+        
+        return produits;
+    }
+    
+    /**
+     * Recherche par préfixes seulement, sans recherche approchée ni partie de code-barres
+     * (proposition automatique en caisse : un produit sans rapport n'est jamais proposé)
+     * @param recherche Le texte saisi
+     * @param limite Nombre maximum de résultats
+     * @return Les produits trouvés, les plus pertinents d'abord
+     */
+    public List<Produit> rechercherParPrefixes(String recherche, int limite) {
+        ProductCatalog catalogue = ProductCatalog.getInstance();
+        if (catalogue.isCharge()) {
+            return catalogue.rechercherParPrefixes(recherche, limite);
+        }
+        
+        List<Produit> produits = new ArrayList<>();
+        String sql = "SELECT * FROM produits WHERE nom LIKE ? ORDER BY nom LIMIT ?";
+        
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, recherche.trim() + "%");
+            stmt.setInt(2, limite);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                produits.add(mapResultSetToProduit(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche de produits: " + e.getMessage());
+        }
+        
+        return produits;
+    }
+    
     /**
      * Récupère les produits avec stock faible
      * @return Liste des produits avec stock faible
@@ -154,16 +278,12 @@ public class ProduitDAO {
      * @return true si la création réussit, false sinon
      */
     public boolean create(Produit produit) {
-        // Vérifier si la colonne unite existe
-        boolean hasUnite = columnExists("unite");
-        String sql;
-        if (hasUnite) {
-            sql = "INSERT INTO produits (code_barre, nom, categorie, prix_achat_actuel, prix_vente_defaut, quantite_stock, unite, seuil_alerte) " +
-                  "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        } else {
-            sql = "INSERT INTO produits (code_barre, nom, categorie, prix_achat_actuel, prix_vente_defaut, quantite_stock, seuil_alerte) " +
-                  "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        }
+        // La présence des colonnes unite et famille est connue via le registre du schéma
+        boolean hasUnite = SchemaRegistry.hasColumn("produits", "unite");
+        boolean hasFamille = SchemaRegistry.hasColumn("produits", "famille");
+        String sql = "INSERT INTO produits (code_barre, nom, categorie, prix_achat_actuel, prix_vente_defaut, quantite_stock" +
+                     (hasUnite ? ", unite" : "") + ", seuil_alerte" + (hasFamille ? ", famille" : "") + ") " +
+                     "VALUES (?, ?, ?, ?, ?, ?" + (hasUnite ? ", ?" : "") + ", ?" + (hasFamille ? ", ?" : "") + ")";
         
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
@@ -172,13 +292,16 @@ public class ProduitDAO {
             stmt.setString(paramIndex++, produit.getCodeBarre());
             stmt.setString(paramIndex++, produit.getNom());
             stmt.setString(paramIndex++, produit.getCategorie() != null ? produit.getCategorie() : "");
-            stmt.setBigDecimal(paramIndex++, produit.getPrixAchatActuel());
-            stmt.setBigDecimal(paramIndex++, produit.getPrixVenteDefaut());
+            stmt.setBigDecimal(paramIndex++, produit.getPrixAchatActuel().toBigDecimal());
+            stmt.setBigDecimal(paramIndex++, produit.getPrixVenteDefaut().toBigDecimal());
             stmt.setInt(paramIndex++, produit.getQuantiteStock());
             if (hasUnite) {
                 stmt.setString(paramIndex++, produit.getUnite());
             }
             stmt.setInt(paramIndex++, produit.getSeuilAlerte());
+            if (hasFamille) {
+                stmt.setInt(paramIndex++, produit.getFamille());
+            }
             
             int rowsAffected = stmt.executeUpdate();
             
@@ -187,6 +310,7 @@ public class ProduitDAO {
                 if (rs.next()) {
                     produit.setId(rs.getInt(1));
                 }
+                ProductCatalog.getInstance().mettreAJour(produit);
                 return true;
             }
         } catch (SQLException e) {
@@ -202,34 +326,44 @@ public class ProduitDAO {
      * @return true si la mise à jour réussit, false sinon
      */
     public boolean update(Produit produit) {
-        // Vérifier si la colonne unite existe
-        boolean hasUnite = columnExists("unite");
-        String sql;
-        if (hasUnite) {
-            sql = "UPDATE produits SET code_barre = ?, nom = ?, categorie = ?, prix_achat_actuel = ?, " +
-                  "prix_vente_defaut = ?, quantite_stock = ?, unite = ?, seuil_alerte = ? WHERE id = ?";
-        } else {
-            sql = "UPDATE produits SET code_barre = ?, nom = ?, categorie = ?, prix_achat_actuel = ?, " +
-                  "prix_vente_defaut = ?, quantite_stock = ?, seuil_alerte = ? WHERE id = ?";
-        }
+        // La présence des colonnes unite et famille est connue via le registre du schéma
+        boolean hasUnite = SchemaRegistry.hasColumn("produits", "unite");
+        boolean hasFamille = SchemaRegistry.hasColumn("produits", "famille");
+        String sql = "UPDATE produits SET code_barre = ?, nom = ?, categorie = ?, prix_achat_actuel = ?, " +
+                     "prix_vente_defaut = ?, quantite_stock = ?" + (hasUnite ? ", unite = ?" : "") +
+                     ", seuil_alerte = ?" + (hasFamille ? ", famille = ?" : "") + " WHERE id = ?";
         
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            if (hasFamille) {
+                // Produit rattaché à une catégorie : sa famille fait foi (même règle que CategorieDAO.update)
+                Integer famille = findFamilleCategorie(conn, produit.getId());
+                if (famille != null) {
+                    produit.setFamille(famille);
+                }
+            }
+            
             int paramIndex = 1;
             stmt.setString(paramIndex++, produit.getCodeBarre());
             stmt.setString(paramIndex++, produit.getNom());
             stmt.setString(paramIndex++, produit.getCategorie() != null ? produit.getCategorie() : "");
-            stmt.setBigDecimal(paramIndex++, produit.getPrixAchatActuel());
-            stmt.setBigDecimal(paramIndex++, produit.getPrixVenteDefaut());
+            stmt.setBigDecimal(paramIndex++, produit.getPrixAchatActuel().toBigDecimal());
+            stmt.setBigDecimal(paramIndex++, produit.getPrixVenteDefaut().toBigDecimal());
             stmt.setInt(paramIndex++, produit.getQuantiteStock());
             if (hasUnite) {
                 stmt.setString(paramIndex++, produit.getUnite());
             }
             stmt.setInt(paramIndex++, produit.getSeuilAlerte());
+            if (hasFamille) {
+                stmt.setInt(paramIndex++, produit.getFamille());
+            }
             stmt.setInt(paramIndex++, produit.getId());
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                ProductCatalog.getInstance().mettreAJour(produit);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la mise à jour de produit: " + e.getMessage());
         }
@@ -249,7 +383,10 @@ public class ProduitDAO {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                ProductCatalog.getInstance().retirer(id);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la suppression de produit: " + e.getMessage());
         }
@@ -272,7 +409,10 @@ public class ProduitDAO {
             stmt.setInt(1, quantite);
             stmt.setInt(2, produitId);
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                ProductCatalog.getInstance().definirStock(produitId, quantite);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la mise à jour du stock: " + e.getMessage());
         }
@@ -280,6 +420,50 @@ public class ProduitDAO {
         return false;
     }
     
+    /**
+     * Famille de la catégorie à laquelle le produit est rattaché (category_id)
+     * @return Le code de la famille, null si le produit n'est rattaché à aucune
+     *         catégorie ou si le schéma ne le prévoit pas
+     */
+    private Integer findFamilleCategorie(Connection conn, int produitId) throws SQLException {
+        if (!SchemaRegistry.hasColumn("produits", "category_id") || !SchemaRegistry.hasColumn("categories", "famille")) {
+            return null;
+        }
+        String sql = "SELECT c.famille FROM produits p INNER JOIN categories c ON p.category_id = c.id WHERE p.id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, produitId);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : null;
+        }
+    }
+    
+    /**
+     * Ajoute une quantité au stock d'un produit, en une seule instruction
+     * (sans lecture préalable : deux réceptions simultanées s'additionnent)
+     * @param produitId L'ID du produit
+     * @param delta La quantité à ajouter (négative pour retirer)
+     * @return true si la mise à jour réussit, false sinon
+     */
+    public boolean ajouterStock(int produitId, int delta) {
+        String sql = "UPDATE produits SET quantite_stock = quantite_stock + ? WHERE id = ?";
+        
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, delta);
+            stmt.setInt(2, produitId);
+            
+            if (stmt.executeUpdate() > 0) {
+                ProductCatalog.getInstance().ajusterStock(produitId, delta);
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de l'ajout au stock: " + e.getMessage());
+        }
+        
+        return false;
+    }
+    
     /**
      * Vérifie si un code-barres existe déjà
      * @param codeBarre Le code-barres à vérifier
@@ -304,51 +488,40 @@ public class ProduitDAO {
         return false;
     }
     
-    /**
-     * Mappe un ResultSet vers un objet Produit
-     */
     /**
      * Récupère toutes les catégories distinctes (méthode de compatibilité)
-     * Utilise la table categories si disponible, sinon la colonne categorie
+     * Utilise la colonne categorie des produits si elle existe, sinon la table categories
      * @return Liste des noms de catégories
      */
     public List<String> findAllCategories() {
         List<String> categories = new ArrayList<>();
-        
-        // Essayer d'abord avec la table categories
-        try {
-            String sql = "SELECT categorie FROM produits ORDER BY nom";
-            try (Connection conn = DBConnector.getConnection();
-                 Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                
-                while (rs.next()) {
-                    categories.add(rs.getString("nom"));
+
+        String sql;
+        if (SchemaRegistry.hasColumn("produits", "categorie")) {
+            sql = "SELECT DISTINCT categorie FROM produits WHERE categorie IS NOT NULL AND categorie != '' ORDER BY categorie";
+        } else if (SchemaRegistry.hasTable("categories")) {
+            sql = "SELECT nom AS categorie FROM categories ORDER BY nom";
+        } else {
+            return categories;
+        }
+
+        try (Connection conn = DBConnector.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                String categorie = rs.getString("categorie");
+                if (categorie != null && !categorie.isEmpty()) {
+                    categories.add(categorie);
                 }
-                return categories;
             }
         } catch (SQLException e) {
-            // Si la table categories n'existe pas, utiliser l'ancienne méthode
-            String sql = "SELECT DISTINCT categorie FROM produits WHERE categorie IS NOT NULL AND categorie != '' ORDER BY categorie";
-            
-            try (Connection conn = DBConnector.getConnection();
-                 Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                
-                while (rs.next()) {
-                    String categorie = rs.getString("categorie");
-                    if (categorie != null && !categorie.isEmpty()) {
-                        categories.add(categorie);
-                    }
-                }
-            } catch (SQLException e2) {
-                System.err.println("Erreur lors de la récupération des catégories: " + e2.getMessage());
-            }
+            System.err.println("Erreur lors de la récupération des catégories: " + e.getMessage());
         }
-        
+
         return categories;
     }
-    
+
     /**
      * Récupère les produits d'une catégorie (par nom de catégorie)
      * @param categorieNom Le nom de la catégorie
@@ -356,45 +529,33 @@ public class ProduitDAO {
      */
     public List<Produit> findByCategorie(String categorieNom) {
         List<Produit> produits = new ArrayList<>();
-        
-        // Essayer d'abord avec la table categories (via category_id)
-        try {
-            String sql = "SELECT p.* FROM produits p " +
-                       "INNER JOIN categories c ON p.category_id = c.id " +
-                       "WHERE c.nom = ? AND p.quantite_stock > 0 ORDER BY p.nom";
-            
-            try (Connection conn = DBConnector.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-                
-                stmt.setString(1, categorieNom);
-                ResultSet rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    produits.add(mapResultSetToProduit(rs));
-                }
-                return produits;
+
+        // Table categories (via category_id) si le schéma la prévoit, sinon l'ancienne colonne
+        String sql;
+        if (SchemaRegistry.hasTable("categories") && SchemaRegistry.hasColumn("produits", "category_id")) {
+            sql = "SELECT p.* FROM produits p " +
+                  "INNER JOIN categories c ON p.category_id = c.id " +
+                  "WHERE c.nom = ? AND p.quantite_stock > 0 ORDER BY p.nom";
+        } else {
+            sql = "SELECT * FROM produits WHERE categorie = ? AND quantite_stock > 0 ORDER BY nom";
+        }
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, categorieNom);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                produits.add(mapResultSetToProduit(rs));
             }
         } catch (SQLException e) {
-            // Si la table categories n'existe pas, utiliser l'ancienne méthode
-            String sql = "SELECT * FROM produits WHERE categorie = ? AND quantite_stock > 0 ORDER BY nom";
-            
-            try (Connection conn = DBConnector.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-                
-                stmt.setString(1, categorieNom);
-                ResultSet rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    produits.add(mapResultSetToProduit(rs));
-                }
-            } catch (SQLException e2) {
-                System.err.println("Erreur lors de la récupération des produits par catégorie: " + e2.getMessage());
-            }
+            System.err.println("Erreur lors de la récupération des produits par catégorie: " + e.getMessage());
         }
-        
+
         return produits;
     }
-    
+
     /**
      * Récupère les produits d'une catégorie (par ID de catégorie)
      * @param categoryId L'ID de la catégorie
@@ -420,57 +581,40 @@ public class ProduitDAO {
         return produits;
     }
     
+    /**
+     * Ajoute au catalogue un produit lu en base (créé depuis un autre poste par exemple)
+     */
+    private Produit enregistrer(ProductCatalog catalogue, Produit produit) {
+        if (catalogue.isCharge()) {
+            catalogue.mettreAJour(produit);
+        }
+        return produit;
+    }
+    
+    /**
+     * Mappe un ResultSet vers un objet Produit
+     * Les colonnes optionnelles sont lues selon le registre du schéma
+     */
     private Produit mapResultSetToProduit(ResultSet rs) throws SQLException {
         // La base de données utilise snake_case
-        String categorie = null;
-        try {
-            categorie = rs.getString("categorie");
-        } catch (SQLException e) {
-            // Colonne categorie peut ne pas exister dans certaines bases
-        }
-        
-        String unite = null;
-        try {
-            unite = rs.getString("unite");
-        } catch (SQLException e) {
-            // Colonne unite peut ne pas exister dans certaines bases
-        }
-        
-        return new Produit(
+        String categorie = SchemaRegistry.hasColumn("produits", "categorie") ? rs.getString("categorie") : null;
+        String unite = SchemaRegistry.hasColumn("produits", "unite") ? rs.getString("unite") : null;
+
+        Produit produit = new Produit(
             rs.getInt("id"),
             rs.getString("code_barre"),
             rs.getString("nom"),
             categorie != null ? categorie : "",
-            rs.getBigDecimal("prix_achat_actuel"),
-            rs.getBigDecimal("prix_vente_defaut"),
+            Montant.of(rs.getBigDecimal("prix_achat_actuel")),
+            Montant.of(rs.getBigDecimal("prix_vente_defaut")),
             rs.getInt("quantite_stock"),
             unite,
             rs.getInt("seuil_alerte")
         );
-    }
-    
-    /**
-     * Vérifie si une colonne existe dans la table produits
-     */
-    private boolean columnExists(String columnName) {
-        String sql = "SELECT COUNT(*) as count FROM INFORMATION_SCHEMA.COLUMNS " +
-                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'produits' AND COLUMN_NAME = ?";
-        
-        try (Connection conn = DBConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, columnName);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt("count") > 0;
-            }
-        } catch (SQLException e) {
-            // En cas d'erreur, supposer que la colonne n'existe pas
-            return false;
+        // Sans la colonne famille, la famille reste déduite de la catégorie
+        if (SchemaRegistry.hasColumn("produits", "famille")) {
+            produit.setFamille(rs.getInt("famille"));
         }
-        
-        return false;
+        return produit;
     }
 }
-
@@ -0,0 +1,322 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+import model.DetailVente;
+import model.Montant;
+import model.Vente;
+import util.Config;
+
+/**
+ * Journal local des ventes pour le mode hors ligne (Singleton)
+ *
+ * Quand MySQL est injoignable, les ventes validées sont ajoutées à un fichier
+ * en ajout seul, synchronisé sur disque (fsync) avant de rendre la main : la
+ * caisse continue d'encaisser à la vitesse du disque local. Dès que la base
+ * répond, {@link #rejouer()} réinjecte les ventes dans l'ordre ; la référence
+ * de chaque vente (clé d'idempotence) garantit qu'aucune n'est enregistrée deux fois.
+ *
+ * Format : une ligne par vente, "crc32 référence|date|total|utilisateur|détails",
+ * détails séparés par ';' ("produit,quantité,prixVente,prixAchat"). Le fichier
+ * ventes.offset mémorise la position déjà rejouée ; les enregistrements refusés
+ * par la base (produit supprimé...) sont recopiés dans ventes.rejets.
+ *
+ * Les appels se font depuis le thread de {@link SaleSubmissionQueue}.
+ */
+public class SaleJournal {
+
+    private static final SaleJournal INSTANCE = new SaleJournal(Paths.get(Config.JOURNAL_VENTES_DOSSIER));
+
+    private final Path fichier;
+    private final Path fichierOffset;
+    private final Path fichierRejets;
+    private final VenteDAO venteDAO = new VenteDAO();
+
+    private FileChannel canal = null;
+    private long offset = 0;
+    private volatile boolean referenceSignalee = false;
+
+    private SaleJournal(Path dossier) {
+        this.fichier = dossier.resolve("ventes.journal");
+        this.fichierOffset = dossier.resolve("ventes.offset");
+        this.fichierRejets = dossier.resolve("ventes.rejets");
+        try {
+            Files.createDirectories(dossier);
+            canal = FileChannel.open(fichier, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            offset = lireOffset();
+            tronquerFinIncomplete();
+            if (!estVide()) {
+                System.out.println("Journal des ventes: " + (canal.size() - offset) + " octets à rejouer");
+            }
+        } catch (IOException e) {
+            System.err.println("Journal des ventes indisponible (" + fichier + "): " + e.getMessage());
+            canal = null;
+        }
+    }
+
+    /**
+     * Obtenir l'instance unique du journal
+     * @return Instance du journal
+     */
+    public static SaleJournal getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Indique si le journal peut être utilisé : dossier accessible en écriture et
+     * colonne ventes.reference présente (sans clé d'idempotence, rejouer une vente
+     * dont le commit était incertain pourrait l'enregistrer deux fois)
+     *
+     * Si la base était déjà injoignable au lancement, le schéma n'a pas pu être lu :
+     * la colonne est alors supposée présente et vérifiée au rejeu, qui attend qu'elle existe.
+     */
+    public boolean isDisponible() {
+        return canal != null && (!SchemaRegistry.isLoaded() || referenceDisponible());
+    }
+
+    private boolean referenceDisponible() {
+        if (SchemaRegistry.hasColumn("ventes", "reference")) {
+            return true;
+        }
+        if (SchemaRegistry.isLoaded() && !referenceSignalee) {
+            referenceSignalee = true;
+            System.err.println("Mode hors ligne désactivé: colonne ventes.reference absente "
+                    + "(exécuter database/add_reference_vente.sql)");
+        }
+        return false;
+    }
+
+    /**
+     * Indique s'il reste des ventes à rejouer
+     */
+    public synchronized boolean estVide() {
+        try {
+            return canal == null || canal.size() <= offset;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ajoute une vente au journal et attend qu'elle soit écrite sur disque
+     * @param vente La vente (avec sa référence)
+     * @throws IOException si l'écriture échoue
+     */
+    public synchronized void ajouter(Vente vente) throws IOException {
+        if (canal == null) {
+            throw new IOException("Journal des ventes indisponible");
+        }
+        if (vente.getReference() == null) {
+            throw new IllegalArgumentException("Une vente journalisée doit avoir une référence");
+        }
+
+        String contenu = encoder(vente);
+        CRC32 crc = new CRC32();
+        byte[] octets = contenu.getBytes(StandardCharsets.UTF_8);
+        crc.update(octets);
+        ByteBuffer ligne = StandardCharsets.UTF_8.encode(Long.toHexString(crc.getValue()) + " " + contenu + "\n");
+
+        long position = canal.size();
+        while (ligne.hasRemaining()) {
+            position += canal.write(ligne, position);
+        }
+        canal.force(true);
+    }
+
+    /**
+     * Réinjecte dans la base les ventes du journal, dans l'ordre
+     * S'arrête à la première erreur de connexion (nouvel essai plus tard)
+     * @return Nombre de ventes enregistrées
+     */
+    public synchronized int rejouer() {
+        if (estVide() || !referenceDisponible()) {
+            return 0; // ventes conservées jusqu'à ce que la colonne reference existe
+        }
+
+        int rejouees = 0;
+        try {
+            long base = offset;
+            int taille = (int) (canal.size() - base);
+            ByteBuffer tampon = ByteBuffer.allocate(taille);
+            while (tampon.hasRemaining()) {
+                if (canal.read(tampon, base + tampon.position()) < 0) {
+                    break;
+                }
+            }
+            byte[] octets = tampon.array();
+
+            int debut = 0;
+            for (int i = 0; i < octets.length; i++) {
+                if (octets[i] != '\n') {
+                    continue;
+                }
+                String ligne = new String(octets, debut, i - debut, StandardCharsets.UTF_8);
+                Vente vente = decoder(ligne);
+                if (vente == null) {
+                    System.err.println("Journal des ventes: enregistrement corrompu ignoré");
+                    rejeter(ligne);
+                } else {
+                    try {
+                        venteDAO.enregistrer(vente);
+                        rejouees++;
+                    } catch (SQLException e) {
+                        if (SaleSubmissionQueue.estConnexionPerdue(e) || SaleSubmissionQueue.estTransitoire(e)) {
+                            break; // base toujours indisponible : on reprendra ici
+                        }
+                        System.err.println("Journal des ventes: vente " + vente.getReference()
+                                + " refusée par la base: " + e.getMessage());
+                        rejeter(ligne);
+                    }
+                }
+                debut = i + 1;
+                ecrireOffset(base + debut);
+            }
+
+            compacterSiVide();
+        } catch (IOException e) {
+            System.err.println("Erreur lors du rejeu du journal des ventes: " + e.getMessage());
+        }
+
+        if (rejouees > 0) {
+            System.out.println("Journal des ventes: " + rejouees + " vente(s) rejouée(s)");
+        }
+        return rejouees;
+    }
+
+    // ========================================
+    // ENCODAGE
+    // ========================================
+
+    private static String encoder(Vente vente) {
+        StringBuilder sb = new StringBuilder(64 + vente.getDetails().size() * 32);
+        sb.append(vente.getReference()).append('|')
+          .append(vente.getDateVente()).append('|')
+          .append(vente.getTotalVente()).append('|')
+          .append(vente.getUtilisateurId()).append('|');
+        boolean premier = true;
+        for (DetailVente d : vente.getDetails()) {
+            if (!premier) {
+                sb.append(';');
+            }
+            premier = false;
+            sb.append(d.getProduitId()).append(',')
+              .append(d.getQuantite()).append(',')
+              .append(d.getPrixVenteUnitaire()).append(',')
+              .append(d.getPrixAchatUnitaire());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return La vente, ou null si la ligne est corrompue
+     */
+    private static Vente decoder(String ligne) {
+        try {
+            int espace = ligne.indexOf(' ');
+            String contenu = ligne.substring(espace + 1);
+            CRC32 crc = new CRC32();
+            crc.update(contenu.getBytes(StandardCharsets.UTF_8));
+            if (crc.getValue() != Long.parseLong(ligne.substring(0, espace), 16)) {
+                return null;
+            }
+
+            String[] champs = contenu.split("\\|", -1);
+            Vente vente = new Vente(LocalDateTime.parse(champs[1]), Montant.parse(champs[2]),
+                    Integer.parseInt(champs[3]));
+            vente.setReference(champs[0]);
+            if (!champs[4].isEmpty()) {
+                for (String detail : champs[4].split(";")) {
+                    String[] d = detail.split(",");
+                    vente.addDetail(new DetailVente(0, Integer.parseInt(d[0]), Integer.parseInt(d[1]),
+                            Montant.parse(d[2]), Montant.parse(d[3])));
+                }
+            }
+            return vente;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ========================================
+    // FICHIERS
+    // ========================================
+
+    private long lireOffset() throws IOException {
+        if (!Files.exists(fichierOffset)) {
+            return 0;
+        }
+        String contenu = new String(Files.readAllBytes(fichierOffset), StandardCharsets.UTF_8).trim();
+        try {
+            return Math.min(Long.parseLong(contenu), canal.size());
+        } catch (NumberFormatException e) {
+            return 0; // les références évitent les doublons si tout est rejoué
+        }
+    }
+
+    private void ecrireOffset(long nouvelOffset) throws IOException {
+        Path tmp = fichierOffset.resolveSibling("ventes.offset.tmp");
+        try (FileChannel c = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            c.write(StandardCharsets.UTF_8.encode(Long.toString(nouvelOffset)));
+            c.force(true);
+        }
+        Files.move(tmp, fichierOffset, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        offset = nouvelOffset;
+    }
+
+    /**
+     * Supprime une dernière ligne sans fin (écriture interrompue par un arrêt brutal)
+     */
+    private void tronquerFinIncomplete() throws IOException {
+        long taille = canal.size();
+        if (taille == 0) {
+            return;
+        }
+        ByteBuffer dernier = ByteBuffer.allocate(1);
+        canal.read(dernier, taille - 1);
+        if (dernier.get(0) == '\n') {
+            return;
+        }
+        long fin = taille - 1;
+        ByteBuffer octet = ByteBuffer.allocate(1);
+        while (fin > offset) {
+            octet.clear();
+            canal.read(octet, fin - 1);
+            if (octet.get(0) == '\n') {
+                break;
+            }
+            fin--;
+        }
+        System.err.println("Journal des ventes: " + (taille - fin) + " octets incomplets supprimés en fin de fichier");
+        canal.truncate(fin);
+        canal.force(true);
+    }
+
+    /**
+     * Remet le journal à zéro une fois tout rejoué
+     */
+    private void compacterSiVide() throws IOException {
+        if (canal.size() == offset && offset > 0) {
+            canal.truncate(0);
+            canal.force(true);
+            ecrireOffset(0);
+        }
+    }
+
+    private void rejeter(String ligne) throws IOException {
+        Files.write(fichierRejets, (ligne + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+    }
+}
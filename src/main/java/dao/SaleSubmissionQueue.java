@@ -0,0 +1,260 @@
+package dao;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Vente;
+import util.Config;
+
+/**
+ * File d'enregistrement des ventes en arrière-plan (Singleton)
+ *
+ * La caisse soumet une vente validée et peut aussitôt commencer le panier suivant :
+ * la transaction (vente, détails, stock) est exécutée par un thread dédié, dans
+ * l'ordre de soumission, et le résultat est rendu par un CompletableFuture.
+ * Les erreurs transitoires (connexion perdue, verrou, pool saturé) sont retentées
+ * avec un délai croissant. Chaque vente reçoit une référence unique avant sa
+ * première tentative : une vente dont le commit a abouti sans que la réponse
+ * arrive n'est pas enregistrée une seconde fois (voir {@link VenteDAO#enregistrer(Vente)}).
+ *
+ * Si la base est injoignable, la vente est écrite dans le journal local
+ * ({@link SaleJournal}) et la caisse continue de fonctionner hors ligne ; sans la
+ * colonne ventes.reference, ce mode est désactivé et la vente est refusée. Tant que
+ * le journal n'est pas vide, les nouvelles ventes y sont ajoutées à la suite
+ * (l'ordre est conservé) ; il est rejoué périodiquement sur ce même thread.
+ *
+ * Group commit : les ventes soumises pendant une courte fenêtre sont enregistrées
+ * ensemble par {@link VenteDAO#creerGroupe(List)}, en une seule transaction.
+ * Limite : chaque caisse est une JVM distincte, seules les ventes en file sur ce
+ * poste sont regroupées (rafale, retour en ligne). Les commits simultanés de
+ * plusieurs caisses ne sont pas fusionnés ici ; leurs écritures disque sont
+ * mutualisées par le group commit du serveur MySQL (binlog / redo log InnoDB).
+ */
+public class SaleSubmissionQueue {
+
+    private static final SaleSubmissionQueue INSTANCE = new SaleSubmissionQueue();
+
+    private final VenteDAO venteDAO = new VenteDAO();
+    private final SaleJournal journal = SaleJournal.getInstance();
+    private final AtomicInteger enAttente = new AtomicInteger();
+    private final LinkedBlockingQueue<Soumission> soumissions = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "enregistrement-ventes");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private SaleSubmissionQueue() {
+        // Rejeu du journal : tout de suite (ventes d'une session précédente) puis périodiquement
+        executor.scheduleWithFixedDelay(journal::rejouer, 0, Config.JOURNAL_REJEU_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtenir l'instance unique de la file
+     * @return Instance de la file
+     */
+    public static SaleSubmissionQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Soumet une vente pour enregistrement
+     * @param vente La vente validée (avec ses détails)
+     * @return Future complété avec la vente (id renseigné, ou 0 si elle a été journalisée
+     *         hors ligne) ou avec l'erreur définitive
+     */
+    public CompletableFuture<Vente> soumettre(Vente vente) {
+        if (vente.getReference() == null) {
+            vente.setReference(UUID.randomUUID().toString());
+        }
+
+        Soumission soumission = new Soumission(vente);
+        enAttente.incrementAndGet();
+        soumissions.add(soumission);
+        executor.execute(this::traiter);
+        return soumission.resultat;
+    }
+
+    /**
+     * Traite la prochaine vente en attente, regroupée avec celles arrivées
+     * dans la fenêtre de group commit (Config.VENTE_GROUPE_FENETRE_MS)
+     */
+    private void traiter() {
+        Soumission premiere = soumissions.poll();
+        if (premiere == null) {
+            return; // déjà traitée avec un groupe précédent
+        }
+
+        List<Soumission> groupe = new ArrayList<>();
+        groupe.add(premiere);
+        if (Config.VENTE_GROUPE_MAX > 1) {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Config.VENTE_GROUPE_FENETRE_MS);
+            try {
+                while (groupe.size() < Config.VENTE_GROUPE_MAX) {
+                    Soumission suivante = soumissions.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (suivante == null) {
+                        break;
+                    }
+                    groupe.add(suivante);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Le repli vente par vente après un échec n'est sûr qu'avec la clé d'idempotence
+        if (groupe.size() > 1 && journal.estVide() && SchemaRegistry.hasColumn("ventes", "reference")) {
+            try {
+                List<Vente> ventes = new ArrayList<>(groupe.size());
+                for (Soumission s : groupe) {
+                    ventes.add(s.vente);
+                }
+                venteDAO.creerGroupe(ventes);
+                for (Soumission s : groupe) {
+                    terminer(s, null);
+                }
+                return;
+            } catch (SQLException | RuntimeException e) {
+                // Groupe refusé (une vente invalide, base injoignable...) : traitement vente par vente,
+                // chaque vente obtient ainsi son propre résultat
+                System.err.println("Group commit de " + groupe.size() + " ventes annulé: " + e.getMessage());
+            }
+        }
+
+        for (Soumission s : groupe) {
+            traiterUne(s);
+        }
+    }
+
+    private void traiterUne(Soumission s) {
+        try {
+            if (!journal.estVide() && journal.isDisponible()) {
+                journal.ajouter(s.vente); // hors ligne : à la suite des ventes en attente
+            } else {
+                enregistrerAvecRetentatives(s.vente);
+            }
+            terminer(s, null);
+        } catch (SQLException | IOException | RuntimeException e) {
+            System.err.println("Erreur enregistrement vente " + s.vente.getReference() + ": " + e.getMessage());
+            terminer(s, e);
+        }
+    }
+
+    private void terminer(Soumission s, Exception erreur) {
+        enAttente.decrementAndGet();
+        if (erreur == null) {
+            s.resultat.complete(s.vente);
+        } else {
+            s.resultat.completeExceptionally(erreur);
+        }
+    }
+
+    /**
+     * Nombre de ventes soumises et pas encore enregistrées
+     */
+    public int getNombreEnAttente() {
+        return enAttente.get();
+    }
+
+    /**
+     * Indique si la caisse fonctionne hors ligne (ventes en attente dans le journal)
+     */
+    public boolean isHorsLigne() {
+        return !journal.estVide();
+    }
+
+    /**
+     * Termine les enregistrements en cours puis arrête la file (à la fermeture de l'application)
+     * @param delaiMs Attente maximale
+     * @return true si toutes les ventes soumises ont été traitées
+     */
+    public boolean arreter(long delaiMs) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(delaiMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void enregistrerAvecRetentatives(Vente vente) throws SQLException, IOException {
+        // Sans colonne reference, une nouvelle tentative après un commit incertain pourrait doubler la vente
+        int maxTentatives = SchemaRegistry.hasColumn("ventes", "reference") ? Config.VENTE_TENTATIVES_MAX : 1;
+        long delai = Config.VENTE_DELAI_RETENTATIVE_MS;
+
+        for (int tentative = 1; ; tentative++) {
+            try {
+                venteDAO.enregistrer(vente);
+                return;
+            } catch (SQLException e) {
+                if (estConnexionPerdue(e) && journal.isDisponible()) {
+                    System.err.println("Base injoignable, vente " + vente.getReference()
+                            + " conservée dans le journal local (" + e.getMessage() + ")");
+                    journal.ajouter(vente);
+                    return;
+                }
+                if (tentative >= maxTentatives || !estTransitoire(e)) {
+                    throw e;
+                }
+                System.err.println("Vente " + vente.getReference() + ": tentative " + tentative + "/"
+                        + maxTentatives + " échouée, nouvel essai dans " + delai + " ms (" + e.getMessage() + ")");
+                try {
+                    Thread.sleep(delai);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                delai *= 2;
+            }
+        }
+    }
+
+    /**
+     * Erreurs indiquant que la base est injoignable (connexion impossible ou perdue)
+     * Un pool saturé (SQLTransientConnectionException sans état 08) n'en fait pas
+     * partie : la base répond, la vente est retentée au lieu d'être journalisée.
+     */
+    static boolean estConnexionPerdue(SQLException e) {
+        String etat = e.getSQLState();
+        return e instanceof SQLRecoverableException
+                || (etat != null && etat.startsWith("08"));
+    }
+
+    /**
+     * Erreurs pour lesquelles une nouvelle tentative a des chances de réussir
+     * (connexion perdue ou indisponible, interblocage, délai de verrou dépassé)
+     */
+    static boolean estTransitoire(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String etat = e.getSQLState();
+        return (etat != null && (etat.startsWith("08") || etat.startsWith("40")))
+                || e.getErrorCode() == 1205   // ER_LOCK_WAIT_TIMEOUT
+                || e.getErrorCode() == 1213;  // ER_LOCK_DEADLOCK
+    }
+
+    /**
+     * Vente soumise et son résultat
+     */
+    private static final class Soumission {
+        private final Vente vente;
+        private final CompletableFuture<Vente> resultat = new CompletableFuture<>();
+
+        Soumission(Vente vente) {
+            this.vente = vente;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package dao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import util.Config;
+
+/**
+ * Export des ventes et de leurs lignes vers un fichier CSV compressé (gzip)
+ *
+ * Une ligne CSV par ligne de vente, avec la vente, le caissier et le produit
+ * joints. Le résultat est lu en flux (curseur MySQL, fetchSize Integer.MIN_VALUE)
+ * et écrit au fil de l'eau dans un FileChannel : la mémoire utilisée ne dépend
+ * pas du nombre de lignes. Les valeurs sont recopiées telles que renvoyées par
+ * le serveur, sans objet intermédiaire par ligne.
+ *
+ * Format pour un tableur français : séparateur ';', virgule décimale, UTF-8 avec BOM.
+ * Les textes commençant par = + - @ sont préfixés d'une apostrophe (pas de formule
+ * exécutée à l'ouverture).
+ * Le fichier est écrit à côté de la destination puis renommé à la fin : une
+ * exportation interrompue ou en erreur ne laisse pas de fichier partiel.
+ */
+public class SalesCsvExport {
+
+    /**
+     * Suivi de l'avancement, appelé depuis le thread de l'export
+     */
+    @FunctionalInterface
+    public interface Progression {
+        /**
+         * @param lignes Lignes déjà écrites
+         * @param total Lignes à écrire (estimation faite au début de l'export)
+         */
+        void avancer(long lignes, long total);
+    }
+
+    private static final char SEPARATEUR = ';';
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private static final String EN_TETE =
+            "id_vente;reference;date_vente;id_utilisateur;caissier;total_vente;" +
+            "id_ligne;id_produit;code_barre;produit;categorie;quantite;" +
+            "prix_vente_unitaire;prix_achat_unitaire;sous_total\n";
+    private static final int NB_COLONNES = 15;
+
+    /**
+     * Exporte les lignes des ventes d'une période
+     * @param debut Début (inclus)
+     * @param fin Fin (exclue)
+     * @param destination Fichier .csv.gz à créer (remplacé s'il existe)
+     * @param progression Suivi de l'avancement (peut être null)
+     * @return Nombre de lignes exportées
+     * @throws InterruptedIOException Si le thread est interrompu (export annulé, aucun fichier créé)
+     */
+    public long exporter(LocalDateTime debut, LocalDateTime fin, Path destination,
+                         Progression progression) throws IOException, SQLException {
+        long total = compterLignes(debut, fin);
+        // Nom unique : un export annulé qui se termine ne touche pas au fichier du suivant
+        Path temporaire = Files.createTempFile(destination.toAbsolutePath().getParent(),
+                destination.getFileName() + ".", ".part");
+        long lignes;
+
+        try {
+            try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer sortie = ouvrir(canal)) {
+                lignes = ecrire(debut, fin, sortie, total, progression);
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(temporaire);
+            throw e;
+        }
+
+        Files.move(temporaire, destination, StandardCopyOption.REPLACE_EXISTING);
+        return lignes;
+    }
+
+    /**
+     * Nombre de lignes de vente de la période (pour la barre de progression)
+     */
+    public long compterLignes(LocalDateTime debut, LocalDateTime fin) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM detailsvente dv " +
+                     "INNER JOIN ventes v ON v.id = dv.id_vente " +
+                     "WHERE v.date_vente >= ? AND v.date_vente < ?";
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(debut));
+            stmt.setTimestamp(2, Timestamp.valueOf(fin));
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private long ecrire(LocalDateTime debut, LocalDateTime fin, Writer sortie,
+                        long total, Progression progression) throws IOException, SQLException {
+        String reference = SchemaRegistry.hasColumn("ventes", "reference") ? "v.reference" : "NULL";
+        String sql = "SELECT v.id, " + reference + " AS reference, v.date_vente, v.id_utilisateur, u.username, " +
+                     "       v.total_vente, dv.id AS id_ligne, dv.id_produit, p.code_barre, p.nom, p.categorie, " +
+                     "       dv.quantite, dv.prix_vente_unitaire, dv.prix_achat_unitaire, " +
+                     "       dv.prix_vente_unitaire * dv.quantite AS sous_total " +
+                     "FROM ventes v " +
+                     "INNER JOIN detailsvente dv ON dv.id_vente = v.id " +
+                     "LEFT JOIN produits p ON p.id = dv.id_produit " +
+                     "LEFT JOIN utilisateurs u ON u.id = v.id_utilisateur " +
+                     "WHERE v.date_vente >= ? AND v.date_vente < ? " +
+                     "ORDER BY v.date_vente, v.id, dv.id";
+
+        sortie.write('\uFEFF'); // BOM : UTF-8 reconnu par les tableurs
+        sortie.write(EN_TETE);
+
+        // Forme à trois arguments : hors du cache d'instructions (mode flux)
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(debut));
+            stmt.setTimestamp(2, Timestamp.valueOf(fin));
+
+            long lignes = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                try {
+                    while (rs.next()) {
+                        for (int colonne = 1; colonne <= NB_COLONNES; colonne++) {
+                            if (colonne > 1) {
+                                sortie.write(SEPARATEUR);
+                            }
+                            ecrireValeur(sortie, rs.getString(colonne), colonne);
+                        }
+                        sortie.write('\n');
+
+                        if (++lignes % Config.EXPORT_PROGRESSION_LIGNES == 0) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new InterruptedIOException("Export annulé après " + lignes + " lignes");
+                            }
+                            if (progression != null) {
+                                progression.avancer(lignes, Math.max(total, lignes));
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    // Arrête la requête côté serveur avant la fermeture du ResultSet,
+                    // qui sinon lirait toute la fin du flux
+                    stmt.cancel();
+                    throw e;
+                }
+            }
+            if (progression != null) {
+                progression.avancer(lignes, lignes);
+            }
+            return lignes;
+        }
+    }
+
+    /**
+     * Colonnes DECIMAL (total_vente, prix et sous-total) : virgule décimale
+     */
+    private static boolean estMontant(int colonne) {
+        return colonne == 6 || colonne >= 13;
+    }
+
+    /**
+     * Colonnes de texte saisi (référence, caissier, code-barres, produit, catégorie)
+     */
+    private static boolean estTexte(int colonne) {
+        return colonne == 2 || colonne == 5 || (colonne >= 9 && colonne <= 11);
+    }
+
+    private static void ecrireValeur(Writer sortie, String valeur, int colonne) throws IOException {
+        if (valeur == null) {
+            return;
+        }
+        if (estMontant(colonne)) {
+            sortie.write(valeur.replace('.', ','));
+            return;
+        }
+        // Un texte commençant par = + - @ serait exécuté comme une formule par le tableur
+        if (estTexte(colonne) && !valeur.isEmpty() && "=+-@".indexOf(valeur.charAt(0)) >= 0) {
+            valeur = "'" + valeur;
+        }
+        boolean guillemets = false;
+        for (int i = 0; i < valeur.length() && !guillemets; i++) {
+            char c = valeur.charAt(i);
+            guillemets = c == SEPARATEUR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!guillemets) {
+            sortie.write(valeur);
+            return;
+        }
+        sortie.write('"');
+        sortie.write(valeur.replace("\"", "\"\""));
+        sortie.write('"');
+    }
+
+    private static Writer ouvrir(FileChannel canal) throws IOException {
+        OutputStream fichier = Channels.newOutputStream(canal);
+        // Compression rapide : l'export est limité par le processeur, pas par le disque
+        GZIPOutputStream gzip = new GZIPOutputStream(fichier, TAILLE_TAMPON) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+        return new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), TAILLE_TAMPON);
+    }
+}
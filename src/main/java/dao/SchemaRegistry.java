@@ -0,0 +1,108 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registre des métadonnées du schéma (tables et colonnes)
+ *
+ * Le schéma est lu une seule fois (premier usage ou appel explicite à refresh())
+ * au lieu d'interroger INFORMATION_SCHEMA à chaque écriture. Les DAO s'en servent
+ * pour construire leurs requêtes et leurs mappers selon les colonnes présentes
+ * (unite, categorie, category_id...), sans attraper d'exceptions.
+ */
+public class SchemaRegistry {
+
+    private static volatile Map<String, Set<String>> tables = null;
+
+    private SchemaRegistry() {
+    }
+
+    /**
+     * Vérifie si une table existe dans la base courante
+     * @param table Le nom de la table
+     * @return true si la table existe, false sinon (ou si le schéma est illisible)
+     */
+    public static boolean hasTable(String table) {
+        return getTables().containsKey(table.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Vérifie si une colonne existe dans une table
+     * @param table Le nom de la table
+     * @param column Le nom de la colonne
+     * @return true si la colonne existe, false sinon (ou si le schéma est illisible)
+     */
+    public static boolean hasColumn(String table, String column) {
+        Set<String> columns = getTables().get(table.toLowerCase(Locale.ROOT));
+        return columns != null && columns.contains(column.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Retourne les colonnes d'une table
+     * @param table Le nom de la table
+     * @return Ensemble (non modifiable) des colonnes, vide si la table n'existe pas
+     */
+    public static Set<String> getColumns(String table) {
+        return getTables().getOrDefault(table.toLowerCase(Locale.ROOT), Collections.emptySet());
+    }
+
+    /**
+     * Indique si le schéma a déjà été chargé
+     */
+    public static boolean isLoaded() {
+        return tables != null;
+    }
+
+    /**
+     * Relit le schéma depuis la base (à appeler après une migration)
+     * @return true si la lecture a réussi, false sinon
+     */
+    public static synchronized boolean refresh() {
+        String sql = "SELECT TABLE_NAME, COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS " +
+                     "WHERE TABLE_SCHEMA = DATABASE()";
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            Map<String, Set<String>> lu = new HashMap<>();
+            while (rs.next()) {
+                lu.computeIfAbsent(rs.getString(1).toLowerCase(Locale.ROOT), t -> new HashSet<>())
+                  .add(rs.getString(2).toLowerCase(Locale.ROOT));
+            }
+
+            Map<String, Set<String>> figees = new HashMap<>();
+            for (Map.Entry<String, Set<String>> e : lu.entrySet()) {
+                figees.put(e.getKey(), Collections.unmodifiableSet(e.getValue()));
+            }
+            tables = Collections.unmodifiableMap(figees);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la lecture du schéma: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static Map<String, Set<String>> getTables() {
+        Map<String, Set<String>> t = tables;
+        if (t == null) {
+            synchronized (SchemaRegistry.class) {
+                if (tables == null) {
+                    refresh();
+                }
+                t = tables;
+            }
+        }
+        // Si la base est injoignable, on ne met rien en cache : nouvelle tentative au prochain appel
+        return t != null ? t : Collections.emptyMap();
+    }
+}
@@ -0,0 +1,271 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de PreparedStatement, propre à une connexion physique du pool.
+ *
+ * Les requêtes sont indexées par leur texte SQL (et le mode de clés générées).
+ * Combiné à useServerPrepStmts=true, une requête n'est préparée (analysée)
+ * par MySQL qu'une seule fois par connexion ; les exécutions suivantes
+ * réutilisent l'instruction serveur. Le close() d'une instruction empruntée
+ * la remet simplement dans le cache, réinitialisée (paramètres, lots, fetchSize,
+ * maxRows, queryTimeout).
+ *
+ * Les requêtes dont le texte dépend du nombre de lignes (INSERT multi-lignes,
+ * IN (?, ?...)) passent par {@link #prepareUncached(Connection, String)} : chaque
+ * taille occuperait sinon sa propre entrée et évincerait les requêtes fréquentes.
+ */
+public class StatementCache {
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retourne une instruction préparée, depuis le cache si possible
+     * @param sql Le texte SQL
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS ou Statement.NO_GENERATED_KEYS
+     * @param owner Le handle logique de connexion (retourné par getConnection())
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+        if (maxSize <= 0) {
+            MISSES.incrementAndGet();
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        String key = autoGeneratedKeys + ":" + sql;
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            HITS.incrementAndGet();
+            entry.inUse = true;
+            return entry.newHandle(owner);
+        }
+
+        MISSES.incrementAndGet();
+        PreparedStatement stmt = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // Même requête déjà empruntée sur cette connexion : instruction non cachée
+            return stmt;
+        }
+
+        entry = new Entry(key, stmt);
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictIfNeeded();
+        return entry.newHandle(owner);
+    }
+
+    /**
+     * Ferme toutes les instructions du cache
+     */
+    void closeAll() {
+        for (Entry e : entries.values()) {
+            e.closePhysical();
+        }
+        entries.clear();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            EVICTIONS.incrementAndGet();
+            if (eldest.inUse) {
+                eldest.evicted = true; // sera fermée au retour
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    // ========================================
+    // STATISTIQUES
+    // ========================================
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    public static long getEvictions() {
+        return EVICTIONS.get();
+    }
+
+    /**
+     * Taux de succès du cache (0.0 à 1.0)
+     */
+    public static double getHitRatio() {
+        long hits = HITS.get();
+        long total = hits + MISSES.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public static void resetStatistiques() {
+        HITS.set(0);
+        MISSES.set(0);
+        EVICTIONS.set(0);
+    }
+
+    public static String getStatistiques() {
+        return String.format("Cache d'instructions: %d hits, %d misses, %d évictions (%.1f%%)",
+                getHits(), getMisses(), getEvictions(), getHitRatio() * 100);
+    }
+
+    /**
+     * Instruction physique conservée dans le cache
+     */
+    private final class Entry {
+        private final String key;
+        private final PreparedStatement stmt;
+        private boolean inUse;
+        private boolean evicted;
+
+        Entry(String key, PreparedStatement stmt) {
+            this.key = key;
+            this.stmt = stmt;
+        }
+
+        PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner));
+        }
+
+        void giveBack(List<ResultSet> openResults) {
+            for (ResultSet rs : openResults) {
+                try {
+                    rs.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            inUse = false;
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                stmt.clearParameters();
+                stmt.clearBatch();
+                stmt.clearWarnings();
+                stmt.setFetchSize(0);
+                stmt.setMaxRows(0);
+                stmt.setQueryTimeout(0);
+            } catch (SQLException e) {
+                entries.remove(key);
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Handle logique remis au DAO : close() remet l'instruction dans le cache
+     */
+    private static final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private final List<ResultSet> openResults = new ArrayList<>(1);
+        private boolean logicallyClosed = false;
+
+        Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        entry.giveBack(openResults);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.stmt + "]";
+                default:
+                    break;
+            }
+            if (logicallyClosed) {
+                throw new SQLException("Instruction déjà fermée");
+            }
+            Object result;
+            try {
+                result = method.invoke(entry.stmt, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                openResults.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Indique si un appel prepareStatement peut passer par le cache
+     */
+    static boolean isCacheable(Method method) {
+        if (!"prepareStatement".equals(method.getName())) {
+            return false;
+        }
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1
+                || (types.length == 2 && types[1] == int.class);
+    }
+
+    /**
+     * Prépare une instruction hors du cache (forme à trois arguments, non interceptée)
+     * @param conn Connexion du pool
+     * @param sql Texte SQL de taille variable
+     */
+    static PreparedStatement prepareUncached(Connection conn, String sql) throws SQLException {
+        return conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    static int autoGeneratedKeys(Object[] args) {
+        return args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+    }
+}
@@ -9,7 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import model.Utilisateur;
-import util.SecurityUtil;
+import util.VerifiedLoginCache;
 
 /**
  * DAO pour l'authentification et la gestion des utilisateurs
@@ -34,7 +34,8 @@ public class UtilisateurDAO {
             if (rs.next()) {
                 // La colonne dans la base de données est password_hash (snake_case)
                 String passwordHash = rs.getString("password_hash");
-                if (passwordHash != null && SecurityUtil.checkPassword(password, passwordHash)) {
+                // BCrypt complet, sauf reconnexion récente déjà vérifiée sur ce poste
+                if (passwordHash != null && VerifiedLoginCache.getInstance().verifier(username, password, passwordHash)) {
                     return new Utilisateur(
                         rs.getInt("id"),
                         rs.getString("username"),
@@ -153,7 +154,10 @@ public class UtilisateurDAO {
             stmt.setString(3, utilisateur.getRole().name());
             stmt.setInt(4, utilisateur.getId());
 
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                VerifiedLoginCache.getInstance().invalider(utilisateur.getUsername());
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la mise à jour d'utilisateur: " + e.getMessage());
         }
@@ -173,7 +177,11 @@ public class UtilisateurDAO {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                // Seul l'id est connu ici : suppression rare, tout le cache est vidé
+                VerifiedLoginCache.getInstance().vider();
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la suppression d'utilisateur: " + e.getMessage());
         }
@@ -1,17 +1,30 @@
 package dao;
 
-import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import model.DetailVente;
+import model.FamilleProduit;
+import model.Montant;
+import model.Produit;
+import model.ResumeVente;
+import model.StatistiquesTabac;
+import model.StatistiquesVentes;
 import model.Vente;
 
 /**
@@ -19,10 +32,34 @@ import model.Vente;
  */
 public class VenteDAO {
 
+    private final VentesRollupDAO rollup = new VentesRollupDAO();
+
     /**
      * Créer une vente avec ses détails + mise à jour stock
      */
     public boolean create(Vente vente) {
+        try {
+            enregistrer(vente);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Erreur création vente: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Enregistre une vente, ses détails et les sorties de stock dans une seule transaction
+     *
+     * Si la table ventes possède la colonne reference (clé d'idempotence unique),
+     * une vente déjà enregistrée avec la même référence n'est pas insérée une
+     * seconde fois : l'appel réussit et renseigne l'id existant. Une vente peut
+     * donc être resoumise sans risque après une erreur survenue pendant le commit.
+     *
+     * @throws SQLException si la transaction échoue (elle est alors annulée)
+     */
+    public void enregistrer(Vente vente) throws SQLException {
+        boolean avecReference = vente.getReference() != null
+                && SchemaRegistry.hasColumn("ventes", "reference");
         Connection conn = null;
 
         try {
@@ -30,84 +67,317 @@ public class VenteDAO {
             conn.setAutoCommit(false);
 
             // INSERT VENTE
-            String sqlVente = "INSERT INTO ventes (date_vente, total_vente, id_utilisateur) VALUES (?, ?, ?)";
-            PreparedStatement stmtVente = conn.prepareStatement(sqlVente, Statement.RETURN_GENERATED_KEYS);
-
-            stmtVente.setTimestamp(1, Timestamp.valueOf(vente.getDateVente()));
-            stmtVente.setBigDecimal(2, vente.getTotalVente());
-            stmtVente.setInt(3, vente.getUtilisateurId());
-            stmtVente.executeUpdate();
+            String sqlVente = avecReference
+                    ? "INSERT INTO ventes (date_vente, total_vente, id_utilisateur, reference) VALUES (?, ?, ?, ?)"
+                    : "INSERT INTO ventes (date_vente, total_vente, id_utilisateur) VALUES (?, ?, ?)";
+            int venteId;
+            try (PreparedStatement stmtVente = conn.prepareStatement(sqlVente, Statement.RETURN_GENERATED_KEYS)) {
+                stmtVente.setTimestamp(1, Timestamp.valueOf(vente.getDateVente()));
+                stmtVente.setBigDecimal(2, vente.getTotalVente().toBigDecimal());
+                stmtVente.setInt(3, vente.getUtilisateurId());
+                if (avecReference) {
+                    stmtVente.setString(4, vente.getReference());
+                }
+                stmtVente.executeUpdate();
 
-            ResultSet rs = stmtVente.getGeneratedKeys();
-            if (!rs.next()) {
+                ResultSet rs = stmtVente.getGeneratedKeys();
+                if (!rs.next()) {
+                    throw new SQLException("Aucun id généré pour la vente");
+                }
+                venteId = rs.getInt(1);
+            } catch (SQLIntegrityConstraintViolationException e) {
+                Integer existante = avecReference ? findIdByReference(conn, vente.getReference()) : null;
+                if (existante == null) {
+                    throw e;
+                }
+                // Vente déjà enregistrée (tentative précédente dont le commit a abouti)
                 conn.rollback();
-                return false;
+                vente.setId(existante);
+                return;
             }
-            int venteId = rs.getInt(1);
-            vente.setId(venteId);
 
             // INSERT DETAILS + UPDATE STOCK
             String sqlDetail = "INSERT INTO detailsvente (id_vente, id_produit, quantite, prix_vente_unitaire, prix_achat_unitaire) VALUES (?, ?, ?, ?, ?)";
             String sqlStock = "UPDATE produits SET quantite_stock = quantite_stock - ? WHERE id = ?";
 
-            PreparedStatement stmtDetail = conn.prepareStatement(sqlDetail);
-            PreparedStatement stmtStock = conn.prepareStatement(sqlStock);
+            try (PreparedStatement stmtDetail = conn.prepareStatement(sqlDetail);
+                 PreparedStatement stmtStock = conn.prepareStatement(sqlStock)) {
+
+                for (DetailVente d : vente.getDetails()) {
+
+                    stmtDetail.setInt(1, venteId);
+                    stmtDetail.setInt(2, d.getProduitId());
+                    stmtDetail.setInt(3, d.getQuantite());
+                    stmtDetail.setBigDecimal(4, d.getPrixVenteUnitaire().toBigDecimal());
+                    stmtDetail.setBigDecimal(5, d.getPrixAchatUnitaire().toBigDecimal());
+                    stmtDetail.addBatch();
+
+                    stmtStock.setInt(1, d.getQuantite());
+                    stmtStock.setInt(2, d.getProduitId());
+                    stmtStock.addBatch();
+                }
 
+                stmtDetail.executeBatch();
+                stmtStock.executeBatch();
+            }
+
+            rollup.ajouterVentes(conn, List.of(venteId));
+
+            conn.commit();
+            vente.setId(venteId);
+
+            // Répercuter les sorties de stock dans le catalogue en mémoire
+            ProductCatalog catalogue = ProductCatalog.getInstance();
             for (DetailVente d : vente.getDetails()) {
+                catalogue.ajusterStock(d.getProduitId(), -d.getQuantite());
+            }
+
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Rollback error: " + ex.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                if (conn != null) conn.setAutoCommit(true);
+                if (conn != null) conn.close();
+            } catch (SQLException ignored) {}
+        }
+    }
+
+    /**
+     * Enregistre plusieurs ventes dans une seule transaction (group commit)
+     *
+     * Un seul commit (donc une seule écriture du journal InnoDB) pour tout le groupe :
+     * ventes et détails en INSERT multi-lignes, sorties de stock cumulées par produit
+     * en un seul UPDATE. Chaque vente reçoit son propre id. Les ventes dont la
+     * référence est déjà en base sont reconnues et ne sont pas dupliquées.
+     * Si une vente du groupe est refusée, toute la transaction est annulée :
+     * l'appelant peut alors réessayer les ventes une par une.
+     * Le groupe ne contient que des ventes d'un même poste (voir SaleSubmissionQueue).
+     *
+     * @throws SQLException si la transaction échoue (elle est alors annulée)
+     */
+    public void creerGroupe(List<Vente> ventes) throws SQLException {
+        if (ventes.isEmpty()) {
+            return;
+        }
+        boolean avecReference = SchemaRegistry.hasColumn("ventes", "reference");
+        List<Vente> nouvelles = new ArrayList<>(ventes);
+        Connection conn = null;
+
+        try {
+            conn = DBConnector.getConnection();
+            conn.setAutoCommit(false);
+
+            // Ventes déjà enregistrées lors d'une tentative précédente
+            if (avecReference) {
+                Map<String, Integer> existantes = findIdsByReferences(conn, ventes);
+                nouvelles.removeIf(v -> {
+                    Integer id = existantes.get(v.getReference());
+                    if (id != null) {
+                        v.setId(id);
+                        return true;
+                    }
+                    return false;
+                });
+            }
+            if (nouvelles.isEmpty()) {
+                conn.commit();
+                return;
+            }
 
-                stmtDetail.setInt(1, venteId);
-                stmtDetail.setInt(2, d.getProduitId());
-                stmtDetail.setInt(3, d.getQuantite());
-                stmtDetail.setBigDecimal(4, d.getPrixVenteUnitaire());
-                stmtDetail.setBigDecimal(5, d.getPrixAchatUnitaire());
-                stmtDetail.addBatch();
+            insererVentes(conn, nouvelles, avecReference);
 
-                stmtStock.setInt(1, d.getQuantite());
-                stmtStock.setInt(2, d.getProduitId());
-                stmtStock.addBatch();
+            // INSERT DETAILS (multi-lignes) + cumul des sorties de stock par produit
+            List<DetailVente> details = new ArrayList<>();
+            List<Integer> venteIds = new ArrayList<>();
+            Map<Integer, Integer> sorties = new TreeMap<>(); // ordre des ids : verrous toujours pris dans le même ordre
+            for (Vente v : nouvelles) {
+                for (DetailVente d : v.getDetails()) {
+                    details.add(d);
+                    venteIds.add(v.getId());
+                    sorties.merge(d.getProduitId(), d.getQuantite(), Integer::sum);
+                }
             }
 
-            stmtDetail.executeBatch();
-            stmtStock.executeBatch();
+            if (!details.isEmpty()) {
+                StringBuilder sqlDetail = new StringBuilder(
+                        "INSERT INTO detailsvente (id_vente, id_produit, quantite, prix_vente_unitaire, prix_achat_unitaire) VALUES ");
+                appendValues(sqlDetail, details.size(), "(?, ?, ?, ?, ?)");
+                try (PreparedStatement stmt = StatementCache.prepareUncached(conn, sqlDetail.toString())) {
+                    int p = 1;
+                    for (int i = 0; i < details.size(); i++) {
+                        DetailVente d = details.get(i);
+                        stmt.setInt(p++, venteIds.get(i));
+                        stmt.setInt(p++, d.getProduitId());
+                        stmt.setInt(p++, d.getQuantite());
+                        stmt.setBigDecimal(p++, d.getPrixVenteUnitaire().toBigDecimal());
+                        stmt.setBigDecimal(p++, d.getPrixAchatUnitaire().toBigDecimal());
+                    }
+                    stmt.executeUpdate();
+                }
+
+                StringBuilder sqlStock = new StringBuilder("UPDATE produits SET quantite_stock = quantite_stock - CASE id");
+                for (int i = 0; i < sorties.size(); i++) {
+                    sqlStock.append(" WHEN ? THEN ?");
+                }
+                sqlStock.append(" END WHERE id IN (");
+                appendValues(sqlStock, sorties.size(), "?");
+                sqlStock.append(")");
+                try (PreparedStatement stmt = StatementCache.prepareUncached(conn, sqlStock.toString())) {
+                    int p = 1;
+                    for (Map.Entry<Integer, Integer> e : sorties.entrySet()) {
+                        stmt.setInt(p++, e.getKey());
+                        stmt.setInt(p++, e.getValue());
+                    }
+                    for (Integer produitId : sorties.keySet()) {
+                        stmt.setInt(p++, produitId);
+                    }
+                    stmt.executeUpdate();
+                }
+
+                List<Integer> nouveauxIds = new ArrayList<>(nouvelles.size());
+                for (Vente v : nouvelles) {
+                    nouveauxIds.add(v.getId());
+                }
+                rollup.ajouterVentes(conn, nouveauxIds);
+            }
 
             conn.commit();
-            return true;
+
+            ProductCatalog catalogue = ProductCatalog.getInstance();
+            for (Map.Entry<Integer, Integer> e : sorties.entrySet()) {
+                catalogue.ajusterStock(e.getKey(), -e.getValue());
+            }
 
         } catch (SQLException e) {
-            System.err.println("Erreur création vente: " + e.getMessage());
             try {
                 if (conn != null) conn.rollback();
             } catch (SQLException ex) {
                 System.err.println("Rollback error: " + ex.getMessage());
             }
+            for (Vente v : nouvelles) {
+                v.setId(0); // ids annulés avec la transaction
+            }
+            throw e;
         } finally {
             try {
                 if (conn != null) conn.setAutoCommit(true);
                 if (conn != null) conn.close();
             } catch (SQLException ignored) {}
         }
-        return false;
     }
 
     /**
-     * Liste toutes les ventes
+     * Insère les lignes de ventes et renseigne leurs ids
+     * Avec référence : un INSERT multi-lignes puis relecture des ids par référence
+     * (les ids d'un INSERT multi-lignes ne sont pas forcément consécutifs).
+     * Sans référence : un lot d'INSERT, dont chaque id généré est relu.
      */
-    public List<Vente> findAll() {
-        List<Vente> ventes = new ArrayList<>();
-        String sql = "SELECT * FROM ventes ORDER BY date_vente DESC";
+    private void insererVentes(Connection conn, List<Vente> ventes, boolean avecReference) throws SQLException {
+        if (avecReference) {
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO ventes (date_vente, total_vente, id_utilisateur, reference) VALUES ");
+            appendValues(sql, ventes.size(), "(?, ?, ?, ?)");
+            try (PreparedStatement stmt = StatementCache.prepareUncached(conn, sql.toString())) {
+                int p = 1;
+                for (Vente v : ventes) {
+                    stmt.setTimestamp(p++, Timestamp.valueOf(v.getDateVente()));
+                    stmt.setBigDecimal(p++, v.getTotalVente().toBigDecimal());
+                    stmt.setInt(p++, v.getUtilisateurId());
+                    stmt.setString(p++, v.getReference());
+                }
+                stmt.executeUpdate();
+            }
+            Map<String, Integer> ids = findIdsByReferences(conn, ventes);
+            for (Vente v : ventes) {
+                Integer id = ids.get(v.getReference());
+                if (id == null) {
+                    throw new SQLException("Id introuvable pour la vente " + v.getReference());
+                }
+                v.setId(id);
+            }
+            return;
+        }
 
-        try (Connection conn = DBConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = "INSERT INTO ventes (date_vente, total_vente, id_utilisateur) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Vente v : ventes) {
+                stmt.setTimestamp(1, Timestamp.valueOf(v.getDateVente()));
+                stmt.setBigDecimal(2, v.getTotalVente().toBigDecimal());
+                stmt.setInt(3, v.getUtilisateurId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            ResultSet rs = stmt.getGeneratedKeys();
+            for (Vente v : ventes) {
+                if (!rs.next()) {
+                    throw new SQLException("Aucun id généré pour la vente");
+                }
+                v.setId(rs.getInt(1));
+            }
+        }
+    }
 
+    /**
+     * Ids des ventes déjà enregistrées, par référence
+     */
+    private Map<String, Integer> findIdsByReferences(Connection conn, List<Vente> ventes) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        StringBuilder sql = new StringBuilder("SELECT id, reference FROM ventes WHERE reference IN (");
+        appendValues(sql, ventes.size(), "?");
+        sql.append(")");
+        try (PreparedStatement stmt = StatementCache.prepareUncached(conn, sql.toString())) {
+            int p = 1;
+            for (Vente v : ventes) {
+                stmt.setString(p++, v.getReference());
+            }
+            ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                ventes.add(mapResultSetToVente(rs));
+                ids.put(rs.getString("reference"), rs.getInt("id"));
             }
+        }
+        return ids;
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Erreur findAll: " + e.getMessage());
+    private static void appendValues(StringBuilder sql, int n, String groupe) {
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(groupe);
         }
-        return ventes;
+    }
+
+    /**
+     * Id de la vente portant cette référence, null si aucune
+     */
+    private Integer findIdByReference(Connection conn, String reference) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM ventes WHERE reference = ?")) {
+            stmt.setString(1, reference);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : null;
+        }
+    }
+
+    /**
+     * Page de ventes, des plus récentes aux plus anciennes
+     *
+     * Pagination par curseur (date_vente, id) : la page suivante s'obtient en
+     * passant la dernière vente reçue, sans OFFSET ; chaque page coûte le même
+     * prix quelle que soit la profondeur dans l'historique. Repose sur l'index
+     * idx_date_vente, auquel InnoDB ajoute implicitement la clé primaire id
+     * (voir database/add_index_ventes_pagination.sql).
+     *
+     * @param apres Dernière vente de la page précédente, null pour la première page
+     * @param limite Nombre maximum de ventes
+     * @return Ventes triées par date puis id décroissants
+     */
+    public List<Vente> findPage(Vente apres, int limite) {
+        return findPage(null, apres, limite);
     }
 
     /**
@@ -135,16 +405,40 @@ public class VenteDAO {
     }
 
     /**
-     * Ventes par utilisateur
+     * Page de ventes d'un utilisateur (même pagination par curseur que findPage)
+     * @param utilisateurId ID du caissier
+     * @param apres Dernière vente de la page précédente, null pour la première page
+     * @param limite Nombre maximum de ventes
      */
-    public List<Vente> findByUtilisateur(int utilisateurId) {
+    public List<Vente> findPageByUtilisateur(int utilisateurId, Vente apres, int limite) {
+        return findPage(utilisateurId, apres, limite);
+    }
+
+    private List<Vente> findPage(Integer utilisateurId, Vente apres, int limite) {
         List<Vente> ventes = new ArrayList<>();
-        String sql = "SELECT * FROM ventes WHERE id_utilisateur = ? ORDER BY date_vente DESC";
+        StringBuilder sql = new StringBuilder("SELECT * FROM ventes WHERE 1 = 1");
+        if (utilisateurId != null) {
+            sql.append(" AND id_utilisateur = ?");
+        }
+        if (apres != null) {
+            sql.append(" AND (date_vente < ? OR (date_vente = ? AND id < ?))");
+        }
+        sql.append(" ORDER BY date_vente DESC, id DESC LIMIT ?");
 
         try (Connection conn = DBConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
-            stmt.setInt(1, utilisateurId);
+            int p = 1;
+            if (utilisateurId != null) {
+                stmt.setInt(p++, utilisateurId);
+            }
+            if (apres != null) {
+                Timestamp date = Timestamp.valueOf(apres.getDateVente());
+                stmt.setTimestamp(p++, date);
+                stmt.setTimestamp(p++, date);
+                stmt.setInt(p++, apres.getId());
+            }
+            stmt.setInt(p, limite);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -152,12 +446,67 @@ public class VenteDAO {
             }
 
         } catch (SQLException e) {
-            System.err.println("Erreur findByUtilisateur: " + e.getMessage());
+            System.err.println("Erreur page de ventes: " + e.getMessage());
         }
 
         return ventes;
     }
 
+    /**
+     * Parcourt toutes les ventes, des plus récentes aux plus anciennes, en mémoire constante
+     *
+     * Les lignes arrivent en flux depuis le serveur (curseur MySQL, fetchSize
+     * Integer.MIN_VALUE) et sont remises une à une au visiteur sans être
+     * conservées. La connexion reste occupée pendant tout le parcours : le
+     * visiteur ne doit pas être lent, et ses propres accès à la base passent
+     * par une autre connexion du pool.
+     *
+     * @param visiteur Reçoit chaque vente, sur le thread appelant
+     * @return true si le parcours est allé jusqu'au bout, false en cas d'erreur
+     */
+    public boolean parcourir(Consumer<Vente> visiteur) {
+        return parcourir(null, visiteur);
+    }
+
+    /**
+     * Parcourt les ventes d'un utilisateur en mémoire constante (voir parcourir)
+     * @param utilisateurId ID du caissier
+     * @param visiteur Reçoit chaque vente, sur le thread appelant
+     * @return true si le parcours est allé jusqu'au bout, false en cas d'erreur
+     */
+    public boolean parcourirParUtilisateur(int utilisateurId, Consumer<Vente> visiteur) {
+        return parcourir(utilisateurId, visiteur);
+    }
+
+    private boolean parcourir(Integer utilisateurId, Consumer<Vente> visiteur) {
+        String sql = "SELECT * FROM ventes" +
+                     (utilisateurId != null ? " WHERE id_utilisateur = ?" : "") +
+                     " ORDER BY date_vente DESC, id DESC";
+
+        // Forme à trois arguments : hors du cache d'instructions, pour ne pas
+        // laisser une instruction en mode flux à la requête suivante
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            if (utilisateurId != null) {
+                stmt.setInt(1, utilisateurId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visiteur.accept(mapResultSetToVente(rs));
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Erreur parcours des ventes: " + e.getMessage());
+        }
+
+        return false;
+    }
+
     /**
      * Charger les détails d'une vente
      */
@@ -177,8 +526,8 @@ public class VenteDAO {
                         rs.getInt("id_vente"),
                         rs.getInt("id_produit"),
                         rs.getInt("quantite"),
-                        rs.getBigDecimal("prix_vente_unitaire"),
-                        rs.getBigDecimal("prix_achat_unitaire")
+                        Montant.of(rs.getBigDecimal("prix_vente_unitaire")),
+                        Montant.of(rs.getBigDecimal("prix_achat_unitaire"))
                 ));
             }
 
@@ -189,10 +538,124 @@ public class VenteDAO {
         return details;
     }
 
+    /**
+     * Historique des ventes, des plus récentes aux plus anciennes, en une seule requête
+     * (nombre d'articles et nom du caissier compris)
+     *
+     * Pagination par curseur : la page suivante s'obtient en passant le dernier
+     * résumé reçu, sans OFFSET (coût constant quelle que soit la profondeur).
+     *
+     * @param apres Dernier résumé de la page précédente, null pour la première page
+     * @param limite Nombre maximum de ventes
+     * @return Résumés triés par date puis id décroissants
+     */
+    public List<ResumeVente> findResumes(ResumeVente apres, int limite) {
+        List<ResumeVente> resumes = new ArrayList<>();
+        String filtre = apres == null ? "" : "WHERE date_vente < ? OR (date_vente = ? AND id < ?) ";
+        String sql = """
+                SELECT v.id, v.date_vente, v.total_vente,
+                       COALESCE(SUM(dv.quantite), 0) AS nb_articles,
+                       u.username
+                FROM (
+                    SELECT id, date_vente, total_vente, id_utilisateur
+                    FROM ventes
+                    %s
+                    ORDER BY date_vente DESC, id DESC
+                    LIMIT ?
+                ) v
+                LEFT JOIN detailsvente dv ON dv.id_vente = v.id
+                LEFT JOIN utilisateurs u ON u.id = v.id_utilisateur
+                GROUP BY v.id, v.date_vente, v.total_vente, u.username
+                ORDER BY v.date_vente DESC, v.id DESC
+                """.formatted(filtre);
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int p = 1;
+            if (apres != null) {
+                Timestamp date = Timestamp.valueOf(apres.getDateVente());
+                stmt.setTimestamp(p++, date);
+                stmt.setTimestamp(p++, date);
+                stmt.setInt(p++, apres.getId());
+            }
+            stmt.setInt(p, limite);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                resumes.add(new ResumeVente(
+                        rs.getInt("id"),
+                        rs.getTimestamp("date_vente").toLocalDateTime(),
+                        Montant.of(rs.getBigDecimal("total_vente")),
+                        rs.getInt("nb_articles"),
+                        rs.getString("username")
+                ));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Erreur historique ventes: " + e.getMessage());
+        }
+
+        return resumes;
+    }
+
+    /**
+     * Lignes d'une vente avec le nom du produit déjà joint (voir {@link DetailVente#getProduit()})
+     * Pagination par curseur sur l'id de ligne, pour les tickets très longs.
+     *
+     * @param venteId L'ID de la vente
+     * @param apresId Id de la dernière ligne déjà chargée (0 pour commencer)
+     * @param limite Nombre maximum de lignes
+     */
+    public List<DetailVente> findLignes(int venteId, int apresId, int limite) {
+        List<DetailVente> lignes = new ArrayList<>();
+        String sql = """
+                SELECT dv.id, dv.id_vente, dv.id_produit, dv.quantite,
+                       dv.prix_vente_unitaire, dv.prix_achat_unitaire, p.nom
+                FROM detailsvente dv
+                LEFT JOIN produits p ON p.id = dv.id_produit
+                WHERE dv.id_vente = ? AND dv.id > ?
+                ORDER BY dv.id
+                LIMIT ?
+                """;
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, venteId);
+            stmt.setInt(2, apresId);
+            stmt.setInt(3, limite);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                DetailVente detail = new DetailVente(
+                        rs.getInt("id"),
+                        rs.getInt("id_vente"),
+                        rs.getInt("id_produit"),
+                        rs.getInt("quantite"),
+                        Montant.of(rs.getBigDecimal("prix_vente_unitaire")),
+                        Montant.of(rs.getBigDecimal("prix_achat_unitaire"))
+                );
+                // Produit partiel : seuls l'id et le nom sont renseignés
+                Produit produit = new Produit();
+                produit.setId(detail.getProduitId());
+                String nom = rs.getString("nom");
+                produit.setNom(nom != null ? nom : "Produit #" + detail.getProduitId() + " (supprimé)");
+                detail.setProduit(produit);
+                lignes.add(detail);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Erreur lignes vente: " + e.getMessage());
+        }
+
+        return lignes;
+    }
+
     /**
      * Total des recettes sur une période
      */
-    public BigDecimal getTotalRecettes(LocalDateTime debut, LocalDateTime fin) {
+    public Montant getTotalRecettes(LocalDateTime debut, LocalDateTime fin) {
         String sql = "SELECT SUM(total_vente) FROM ventes WHERE date_vente BETWEEN ? AND ?";
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -202,20 +665,20 @@ public class VenteDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return rs.getBigDecimal(1) != null ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+                return Montant.of(rs.getBigDecimal(1));
             }
 
         } catch (SQLException e) {
             System.err.println("Erreur total recettes: " + e.getMessage());
         }
 
-        return BigDecimal.ZERO;
+        return Montant.ZERO;
     }
 
     /**
      * 🔥 Nouvelle méthode : CA (chiffre d'affaires)
      */
-    public BigDecimal getCAParPeriode(LocalDateTime debut, LocalDateTime fin) {
+    public Montant getCAParPeriode(LocalDateTime debut, LocalDateTime fin) {
         return getTotalRecettes(debut, fin);
     }
 
@@ -241,9 +704,15 @@ public class VenteDAO {
 
     /**
      * Profit total sur une période
+     * Lu dans les agrégats journaliers (SUM(ca - cout)) quand la période commence à
+     * minuit : le dernier jour est alors compté entier, à la granularité des agrégats.
+     * Sinon, ou sans la table ventes_rollup_jour, calculé sur detailsvente.
      */
-    public BigDecimal getTotalProfit(LocalDateTime debut, LocalDateTime fin) {
-        String sql = """
+    public Montant getTotalProfit(LocalDateTime debut, LocalDateTime fin) {
+        boolean agregats = VentesRollupDAO.isDisponible() && debut.toLocalTime().equals(LocalTime.MIDNIGHT);
+        String sql = agregats
+                ? "SELECT SUM(ca - cout) FROM ventes_rollup_jour WHERE jour >= ? AND jour < ?"
+                : """
                 SELECT SUM((dv.prix_vente_unitaire - dv.prix_achat_unitaire) * dv.quantite)
                 FROM detailsvente dv
                 JOIN ventes v ON dv.id_vente = v.id
@@ -253,44 +722,134 @@ public class VenteDAO {
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setTimestamp(1, Timestamp.valueOf(debut));
-            stmt.setTimestamp(2, Timestamp.valueOf(fin));
+            if (agregats) {
+                LocalDate dernierJour = fin.toLocalTime().equals(LocalTime.MIDNIGHT)
+                        ? fin.toLocalDate() : fin.toLocalDate().plusDays(1);
+                stmt.setDate(1, Date.valueOf(debut.toLocalDate()));
+                stmt.setDate(2, Date.valueOf(dernierJour));
+            } else {
+                stmt.setTimestamp(1, Timestamp.valueOf(debut));
+                stmt.setTimestamp(2, Timestamp.valueOf(fin));
+            }
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                BigDecimal profit = rs.getBigDecimal(1);
-                return profit != null ? profit : BigDecimal.ZERO;
+                return Montant.of(rs.getBigDecimal(1));
             }
 
         } catch (SQLException e) {
             System.err.println("Erreur profit: " + e.getMessage());
         }
 
-        return BigDecimal.ZERO;
+        return Montant.ZERO;
+    }
+
+    /**
+     * Statistiques par période (CA, nombre de ventes, bénéfice, panier moyen) en une seule requête
+     * @param debut Début (inclus)
+     * @param fin Fin (exclue)
+     * @param granularite Taille des périodes
+     * @return Une case par période de [debut, fin[, à zéro pour les périodes sans vente
+     */
+    public StatistiquesVentes getStatistiques(LocalDateTime debut, LocalDateTime fin,
+                                              StatistiquesVentes.Granularite granularite) {
+        StatistiquesVentes stats = new StatistiquesVentes(debut, fin, granularite);
+        String sql = """
+                SELECT periode, COUNT(*) AS nb_ventes, SUM(total_vente) AS ca, SUM(benefice) AS benefice
+                FROM (
+                    SELECT TIMESTAMP(%s) AS periode,
+                           v.total_vente,
+                           (SELECT COALESCE(SUM((dv.prix_vente_unitaire - dv.prix_achat_unitaire) * dv.quantite), 0)
+                            FROM detailsvente dv
+                            WHERE dv.id_vente = v.id) AS benefice
+                    FROM ventes v
+                    WHERE v.date_vente >= ? AND v.date_vente < ?
+                ) t
+                GROUP BY periode
+                ORDER BY periode
+                """.formatted(expressionPeriode(granularite));
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(debut));
+            stmt.setTimestamp(2, Timestamp.valueOf(fin));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                stats.setPeriode(
+                        rs.getTimestamp("periode").toLocalDateTime(),
+                        rs.getInt("nb_ventes"),
+                        Montant.of(rs.getBigDecimal("ca")),
+                        Montant.of(rs.getBigDecimal("benefice"))
+                );
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Erreur statistiques: " + e.getMessage());
+        }
+
+        return stats;
+    }
+
+    /**
+     * Début de période calculé par MySQL (cohérent avec Granularite.debutPeriode)
+     */
+    private static String expressionPeriode(StatistiquesVentes.Granularite granularite) {
+        switch (granularite) {
+            case HEURE:
+                return "DATE_FORMAT(v.date_vente, '%Y-%m-%d %H:00:00')";
+            case JOUR:
+                return "DATE(v.date_vente)";
+            case SEMAINE:
+                return "DATE_SUB(DATE(v.date_vente), INTERVAL WEEKDAY(v.date_vente) DAY)";
+            default:
+                return "DATE_FORMAT(v.date_vente, '%Y-%m-01')";
+        }
     }
 
     /**
-     * Récupère les ventes contenant des produits de tabac (tabac, puff, terrea, etc.)
-     * @return Liste des ventes avec produits de tabac
+     * Condition SQL « le produit p est du tabac » : comparaison entière sur la
+     * colonne indexée produits.famille, ou recherche dans le nom de la catégorie
+     * tant que la migration add_famille_produit.sql n'est pas passée
      */
-    public List<Vente> findVentesTabac() {
+    private static String conditionTabac() {
+        if (SchemaRegistry.hasColumn("produits", "famille")) {
+            return "p.famille = " + FamilleProduit.TABAC.getCode();
+        }
+        return """
+            (LOWER(p.categorie) LIKE '%tabac%'
+               OR LOWER(p.categorie) LIKE '%puff%'
+               OR LOWER(p.categorie) LIKE '%terrea%'
+               OR LOWER(p.categorie) LIKE '%cigarette%')""";
+    }
+
+    /**
+     * Récupère les ventes les plus récentes contenant des produits de tabac
+     * @param limite Nombre maximum de ventes
+     * @return Liste des ventes avec produits de tabac, des plus récentes aux plus anciennes
+     */
+    public List<Vente> findVentesTabac(int limite) {
         List<Vente> ventes = new ArrayList<>();
         String sql = """
-            SELECT DISTINCT v.* 
+            SELECT v.*
             FROM ventes v
-            INNER JOIN detailsvente dv ON v.id = dv.id_vente
-            INNER JOIN produits p ON dv.id_produit = p.id
-            WHERE LOWER(p.categorie) LIKE '%tabac%' 
-               OR LOWER(p.categorie) LIKE '%puff%' 
-               OR LOWER(p.categorie) LIKE '%terrea%'
-               OR LOWER(p.categorie) LIKE '%cigarette%'
-            ORDER BY v.date_vente DESC
-            """;
-        
+            WHERE EXISTS (SELECT 1
+                          FROM detailsvente dv
+                          INNER JOIN produits p ON dv.id_produit = p.id
+                          WHERE dv.id_vente = v.id
+                            AND %s
+            )
+            ORDER BY v.date_vente DESC, v.id DESC
+            LIMIT ?
+            """.formatted(conditionTabac());
+
         try (Connection conn = DBConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, limite);
+            ResultSet rs = stmt.executeQuery();
+
             while (rs.next()) {
                 ventes.add(mapResultSetToVente(rs));
             }
@@ -302,37 +861,159 @@ public class VenteDAO {
     }
     
     /**
-     * Calcule le total des ventes de tabac sur une période
+     * Recettes du tabac aujourd'hui, depuis lundi, depuis le 1er du mois et depuis
+     * le début, avec le nombre de ventes concernées
+     *
+     * Avec la table d'agrégats, les recettes sont lues dans ventes_rollup_jour (une
+     * ligne par jour et produit) et seul le nombre de ventes parcourt les lignes de
+     * tabac de detailsvente ; sinon, une requête de sommes conditionnelles parcourt
+     * toutes les lignes de tabac.
+     * @param maintenant Date de référence
+     * @return Les statistiques, à zéro en cas d'erreur
      */
-    public BigDecimal getTotalVentesTabac(LocalDateTime debut, LocalDateTime fin) {
+    public StatistiquesTabac getStatistiquesTabac(LocalDateTime maintenant) {
+        if (VentesRollupDAO.isDisponible()) {
+            return getStatistiquesTabacAgregees(maintenant);
+        }
+        LocalDateTime debutJour = StatistiquesVentes.Granularite.JOUR.debutPeriode(maintenant);
+        LocalDateTime finJour = debutJour.plusDays(1);
         String sql = """
-            SELECT SUM(dv.prix_vente_unitaire * dv.quantite)
+            SELECT SUM(CASE WHEN v.date_vente >= ? AND v.date_vente < ? THEN dv.prix_vente_unitaire * dv.quantite END) AS jour,
+                   SUM(CASE WHEN v.date_vente >= ? AND v.date_vente < ? THEN dv.prix_vente_unitaire * dv.quantite END) AS semaine,
+                   SUM(CASE WHEN v.date_vente >= ? AND v.date_vente < ? THEN dv.prix_vente_unitaire * dv.quantite END) AS mois,
+                   SUM(dv.prix_vente_unitaire * dv.quantite) AS total,
+                   COUNT(DISTINCT v.id) AS nb_ventes
             FROM detailsvente dv
             INNER JOIN ventes v ON dv.id_vente = v.id
             INNER JOIN produits p ON dv.id_produit = p.id
-            WHERE v.date_vente BETWEEN ? AND ?
-              AND (LOWER(p.categorie) LIKE '%tabac%' 
-               OR LOWER(p.categorie) LIKE '%puff%' 
-               OR LOWER(p.categorie) LIKE '%terrea%'
-               OR LOWER(p.categorie) LIKE '%cigarette%')
-            """;
-        
+            WHERE %s
+            """.formatted(conditionTabac());
+
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setTimestamp(1, Timestamp.valueOf(debut));
-            stmt.setTimestamp(2, Timestamp.valueOf(fin));
+
+            Timestamp fin = Timestamp.valueOf(finJour);
+            stmt.setTimestamp(1, Timestamp.valueOf(debutJour));
+            stmt.setTimestamp(2, fin);
+            stmt.setTimestamp(3, Timestamp.valueOf(StatistiquesVentes.Granularite.SEMAINE.debutPeriode(maintenant)));
+            stmt.setTimestamp(4, fin);
+            stmt.setTimestamp(5, Timestamp.valueOf(StatistiquesVentes.Granularite.MOIS.debutPeriode(maintenant)));
+            stmt.setTimestamp(6, fin);
             ResultSet rs = stmt.executeQuery();
-            
+
             if (rs.next()) {
-                BigDecimal total = rs.getBigDecimal(1);
-                return total != null ? total : BigDecimal.ZERO;
+                return new StatistiquesTabac(
+                        Montant.of(rs.getBigDecimal("jour")),
+                        Montant.of(rs.getBigDecimal("semaine")),
+                        Montant.of(rs.getBigDecimal("mois")),
+                        Montant.of(rs.getBigDecimal("total")),
+                        rs.getInt("nb_ventes")
+                );
             }
         } catch (SQLException e) {
-            System.err.println("Erreur lors du calcul du total des ventes de tabac: " + e.getMessage());
+            System.err.println("Erreur lors du calcul des statistiques du tabac: " + e.getMessage());
         }
         
-        return BigDecimal.ZERO;
+        return StatistiquesTabac.VIDE;
+    }
+
+    private StatistiquesTabac getStatistiquesTabacAgregees(LocalDateTime maintenant) {
+        Date aujourdhui = Date.valueOf(maintenant.toLocalDate());
+        String sqlRecettes = """
+            SELECT SUM(CASE WHEN r.jour = ? THEN r.ca END) AS jour,
+                   SUM(CASE WHEN r.jour >= ? AND r.jour <= ? THEN r.ca END) AS semaine,
+                   SUM(CASE WHEN r.jour >= ? AND r.jour <= ? THEN r.ca END) AS mois,
+                   SUM(r.ca) AS total
+            FROM ventes_rollup_jour r
+            INNER JOIN produits p ON r.id_produit = p.id
+            WHERE %s
+            """.formatted(conditionTabac());
+        String sqlNombre = """
+            SELECT COUNT(DISTINCT dv.id_vente)
+            FROM detailsvente dv
+            INNER JOIN produits p ON dv.id_produit = p.id
+            WHERE %s
+            """.formatted(conditionTabac());
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmtRecettes = conn.prepareStatement(sqlRecettes);
+             PreparedStatement stmtNombre = conn.prepareStatement(sqlNombre)) {
+
+            stmtRecettes.setDate(1, aujourdhui);
+            stmtRecettes.setDate(2, Date.valueOf(StatistiquesVentes.Granularite.SEMAINE.debutPeriode(maintenant).toLocalDate()));
+            stmtRecettes.setDate(3, aujourdhui);
+            stmtRecettes.setDate(4, Date.valueOf(StatistiquesVentes.Granularite.MOIS.debutPeriode(maintenant).toLocalDate()));
+            stmtRecettes.setDate(5, aujourdhui);
+
+            ResultSet rsNombre = stmtNombre.executeQuery();
+            int nombreVentes = rsNombre.next() ? rsNombre.getInt(1) : 0;
+
+            ResultSet rs = stmtRecettes.executeQuery();
+            if (rs.next()) {
+                return new StatistiquesTabac(
+                        Montant.of(rs.getBigDecimal("jour")),
+                        Montant.of(rs.getBigDecimal("semaine")),
+                        Montant.of(rs.getBigDecimal("mois")),
+                        Montant.of(rs.getBigDecimal("total")),
+                        nombreVentes
+                );
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du calcul des statistiques du tabac: " + e.getMessage());
+        }
+
+        return StatistiquesTabac.VIDE;
+    }
+
+    /**
+     * Lignes de tabac d'une vente, avec leur produit, en une seule requête
+     * @param venteId ID de la vente
+     * @return Les lignes de tabac, produit renseigné
+     */
+    public List<DetailVente> findDetailsTabacByVente(int venteId) {
+        List<DetailVente> details = new ArrayList<>();
+        String unite = SchemaRegistry.hasColumn("produits", "unite") ? "p.unite" : "NULL";
+        String sql = "SELECT dv.id, dv.id_vente, dv.id_produit, dv.quantite, " +
+                     "       dv.prix_vente_unitaire, dv.prix_achat_unitaire, " +
+                     "       p.code_barre, p.nom, p.categorie, p.prix_achat_actuel, p.prix_vente_defaut, " +
+                     "       p.quantite_stock, p.seuil_alerte, " + unite + " AS unite " +
+                     "FROM detailsvente dv " +
+                     "INNER JOIN produits p ON dv.id_produit = p.id " +
+                     "WHERE dv.id_vente = ? AND " + conditionTabac();
+
+        try (Connection conn = DBConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, venteId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                DetailVente detail = new DetailVente(
+                        rs.getInt("id"),
+                        rs.getInt("id_vente"),
+                        rs.getInt("id_produit"),
+                        rs.getInt("quantite"),
+                        Montant.of(rs.getBigDecimal("prix_vente_unitaire")),
+                        Montant.of(rs.getBigDecimal("prix_achat_unitaire"))
+                );
+                detail.setProduit(new Produit(
+                        rs.getInt("id_produit"),
+                        rs.getString("code_barre"),
+                        rs.getString("nom"),
+                        rs.getString("categorie"),
+                        Montant.of(rs.getBigDecimal("prix_achat_actuel")),
+                        Montant.of(rs.getBigDecimal("prix_vente_defaut")),
+                        rs.getInt("quantite_stock"),
+                        rs.getString("unite"),
+                        rs.getInt("seuil_alerte")
+                ));
+                details.add(detail);
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur détails vente tabac: " + e.getMessage());
+        }
+
+        return details;
     }
     
     /**
@@ -343,20 +1024,16 @@ public class VenteDAO {
     public java.util.List<java.util.Map<String, Object>> getTopProduitsTabac(int limit) {
         java.util.List<java.util.Map<String, Object>> topProduits = new java.util.ArrayList<>();
         String sql = """
-            SELECT p.nom, 
-                   SUM(dv.quantite) as quantite_totale, 
+            SELECT p.nom,
+                   SUM(dv.quantite) as quantite_totale,
                    SUM(dv.prix_vente_unitaire * dv.quantite) as ca_total
             FROM detailsvente dv
-            INNER JOIN ventes v ON dv.id_vente = v.id
             INNER JOIN produits p ON dv.id_produit = p.id
-            WHERE LOWER(p.categorie) LIKE '%tabac%' 
-               OR LOWER(p.categorie) LIKE '%puff%' 
-               OR LOWER(p.categorie) LIKE '%terrea%'
-               OR LOWER(p.categorie) LIKE '%cigarette%'
+            WHERE %s
             GROUP BY p.id, p.nom
             ORDER BY quantite_totale DESC
             LIMIT ?
-            """;
+            """.formatted(conditionTabac());
         
         try (Connection conn = DBConnector.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -368,7 +1045,7 @@ public class VenteDAO {
                 java.util.Map<String, Object> produit = new java.util.HashMap<>();
                 produit.put("nom", rs.getString("nom"));
                 produit.put("quantite", rs.getInt("quantite_totale"));
-                produit.put("ca", rs.getBigDecimal("ca_total") != null ? rs.getBigDecimal("ca_total") : BigDecimal.ZERO);
+                produit.put("ca", Montant.of(rs.getBigDecimal("ca_total")));
                 topProduits.add(produit);
             }
         } catch (SQLException e) {
@@ -386,11 +1063,15 @@ public class VenteDAO {
                 ? rs.getTimestamp("date_vente").toLocalDateTime()
                 : null;
 
-        return new Vente(
+        Vente vente = new Vente(
                 rs.getInt("id"),
                 date,
-                rs.getBigDecimal("total_vente"),
+                Montant.of(rs.getBigDecimal("total_vente")),
                 rs.getInt("id_utilisateur")
         );
+        if (SchemaRegistry.hasColumn("ventes", "reference")) {
+            vente.setReference(rs.getString("reference"));
+        }
+        return vente;
     }
 }
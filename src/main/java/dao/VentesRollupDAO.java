@@ -0,0 +1,117 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * DAO de la table d'agrégats ventes_rollup_jour
+ *
+ * Une ligne par (jour, produit, catégorie, caissier) avec la quantité, le CA et
+ * le coût d'achat cumulés. VenteDAO la met à jour dans la transaction de chaque
+ * vente ; les statistiques du tableau de bord la lisent au lieu de parcourir tout
+ * l'historique de detailsvente. La catégorie est celle du produit au moment de la vente.
+ */
+public class VentesRollupDAO {
+
+    public static final String TABLE = "ventes_rollup_jour";
+
+    /**
+     * Indique si la table d'agrégats existe (migration database/add_ventes_rollup.sql)
+     */
+    public static boolean isDisponible() {
+        return SchemaRegistry.hasTable(TABLE);
+    }
+
+    /**
+     * Ajoute aux agrégats les lignes des ventes indiquées, dans la transaction de l'appelant
+     * @param conn Connexion de la transaction en cours
+     * @param venteIds Ids des ventes qui viennent d'être insérées
+     */
+    void ajouterVentes(Connection conn, List<Integer> venteIds) throws SQLException {
+        if (venteIds.isEmpty() || !isDisponible()) {
+            return;
+        }
+        StringBuilder filtre = new StringBuilder("dv.id_vente IN (");
+        for (int i = 0; i < venteIds.size(); i++) {
+            filtre.append(i == 0 ? "?" : ", ?");
+        }
+        filtre.append(")");
+
+        try (PreparedStatement stmt = StatementCache.prepareUncached(conn, requeteAgregation(filtre.toString()))) {
+            for (int i = 0; i < venteIds.size(); i++) {
+                stmt.setInt(i + 1, venteIds.get(i));
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Reconstruit entièrement les agrégats à partir de l'historique (rattrapage)
+     * @return true si la reconstruction réussit, false sinon
+     */
+    public boolean reconstruire() {
+        if (!isDisponible()) {
+            System.err.println("La table " + TABLE + " n'existe pas (exécuter database/add_ventes_rollup.sql)");
+            return false;
+        }
+
+        Connection conn = null;
+        try {
+            conn = DBConnector.getConnection();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM " + TABLE);
+                int lignes = stmt.executeUpdate(requeteAgregation("1 = 1"));
+                conn.commit();
+                System.out.println("Agrégats de ventes reconstruits (" + lignes + " lignes)");
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la reconstruction des agrégats: " + e.getMessage());
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Rollback error: " + ex.getMessage());
+            }
+        } finally {
+            try {
+                if (conn != null) conn.setAutoCommit(true);
+                if (conn != null) conn.close();
+            } catch (SQLException ignored) {}
+        }
+        return false;
+    }
+
+    /**
+     * INSERT ... SELECT qui agrège les lignes filtrées et les cumule aux agrégats existants
+     */
+    private static String requeteAgregation(String filtre) {
+        String categorie = SchemaRegistry.hasColumn("produits", "categorie")
+                ? "COALESCE(NULLIF(p.categorie, ''), 'Divers')"
+                : "'Divers'";
+        return """
+                INSERT INTO ventes_rollup_jour (jour, id_produit, categorie, id_utilisateur, quantite, ca, cout)
+                SELECT * FROM (
+                    SELECT DATE(v.date_vente) AS jour,
+                           dv.id_produit,
+                           %s AS categorie,
+                           v.id_utilisateur,
+                           SUM(dv.quantite) AS quantite,
+                           SUM(dv.prix_vente_unitaire * dv.quantite) AS ca,
+                           SUM(dv.prix_achat_unitaire * dv.quantite) AS cout
+                    FROM detailsvente dv
+                    JOIN ventes v ON v.id = dv.id_vente
+                    LEFT JOIN produits p ON p.id = dv.id_produit
+                    WHERE %s
+                    GROUP BY jour, dv.id_produit, categorie, v.id_utilisateur
+                ) AS t
+                ON DUPLICATE KEY UPDATE
+                    quantite = ventes_rollup_jour.quantite + t.quantite,
+                    ca = ventes_rollup_jour.ca + t.ca,
+                    cout = ventes_rollup_jour.cout + t.cout
+                """.formatted(categorie, filtre);
+    }
+}
@@ -1,6 +1,7 @@
 package model;
 
-import java.math.BigDecimal;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 
 /**
  * Classe POJO pour l'entité DetailVente
@@ -10,18 +11,21 @@ public class DetailVente {
     private int venteId;
     private int produitId;
     private int quantite;
-    private BigDecimal prixVenteUnitaire;
-    private BigDecimal prixAchatUnitaire;
+    private Montant prixVenteUnitaire;
+    private Montant prixAchatUnitaire;
     
     // Références optionnelles pour faciliter l'affichage
     private Produit produit;
     
+    // Propriété observable de la quantité, créée seulement si l'interface l'observe
+    private IntegerProperty quantiteProperty;
+    
     // Constructeurs
     public DetailVente() {
     }
     
     public DetailVente(int venteId, int produitId, int quantite, 
-                       BigDecimal prixVenteUnitaire, BigDecimal prixAchatUnitaire) {
+                       Montant prixVenteUnitaire, Montant prixAchatUnitaire) {
         this.venteId = venteId;
         this.produitId = produitId;
         this.quantite = quantite;
@@ -30,7 +34,7 @@ public class DetailVente {
     }
     
     public DetailVente(int idDetail, int venteId, int produitId, int quantite, 
-                       BigDecimal prixVenteUnitaire, BigDecimal prixAchatUnitaire) {
+                       Montant prixVenteUnitaire, Montant prixAchatUnitaire) {
         this.idDetail = idDetail;
         this.venteId = venteId;
         this.produitId = produitId;
@@ -65,26 +69,40 @@ public class DetailVente {
     }
     
     public int getQuantite() {
-        return quantite;
+        return quantiteProperty != null ? quantiteProperty.get() : quantite;
     }
     
     public void setQuantite(int quantite) {
-        this.quantite = quantite;
+        if (quantiteProperty != null) {
+            quantiteProperty.set(quantite);
+        } else {
+            this.quantite = quantite;
+        }
+    }
+    
+    /**
+     * Quantité observable (lignes du panier) : une fois créée, c'est elle qui porte la valeur
+     */
+    public IntegerProperty quantiteProperty() {
+        if (quantiteProperty == null) {
+            quantiteProperty = new SimpleIntegerProperty(this, "quantite", quantite);
+        }
+        return quantiteProperty;
     }
     
-    public BigDecimal getPrixVenteUnitaire() {
+    public Montant getPrixVenteUnitaire() {
         return prixVenteUnitaire;
     }
     
-    public void setPrixVenteUnitaire(BigDecimal prixVenteUnitaire) {
+    public void setPrixVenteUnitaire(Montant prixVenteUnitaire) {
         this.prixVenteUnitaire = prixVenteUnitaire;
     }
     
-    public BigDecimal getPrixAchatUnitaire() {
+    public Montant getPrixAchatUnitaire() {
         return prixAchatUnitaire;
     }
     
-    public void setPrixAchatUnitaire(BigDecimal prixAchatUnitaire) {
+    public void setPrixAchatUnitaire(Montant prixAchatUnitaire) {
         this.prixAchatUnitaire = prixAchatUnitaire;
     }
     
@@ -96,13 +114,12 @@ public class DetailVente {
         this.produit = produit;
     }
     
-    public BigDecimal getSousTotal() {
-        return prixVenteUnitaire.multiply(BigDecimal.valueOf(quantite));
+    public Montant getSousTotal() {
+        return prixVenteUnitaire.fois(getQuantite());
     }
     
-    public BigDecimal getProfit() {
-        BigDecimal profitUnitaire = prixVenteUnitaire.subtract(prixAchatUnitaire);
-        return profitUnitaire.multiply(BigDecimal.valueOf(quantite));
+    public Montant getProfit() {
+        return prixVenteUnitaire.moins(prixAchatUnitaire).fois(getQuantite());
     }
     
     @Override
@@ -111,7 +128,7 @@ public class DetailVente {
                 "idDetail=" + idDetail +
                 ", venteId=" + venteId +
                 ", produitId=" + produitId +
-                ", quantite=" + quantite +
+                ", quantite=" + getQuantite() +
                 ", prixVenteUnitaire=" + prixVenteUnitaire +
                 ", prixAchatUnitaire=" + prixAchatUnitaire +
                 '}';
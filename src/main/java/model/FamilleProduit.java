@@ -0,0 +1,54 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * Famille réglementaire d'un produit, déduite de sa catégorie
+ *
+ * Stockée en base sous forme de code entier (colonne indexée produits.famille) :
+ * les requêtes et Produit.isTabac comparent ce code au lieu de chercher des
+ * mots dans le nom de la catégorie.
+ */
+public enum FamilleProduit {
+    GENERAL(0),
+    TABAC(1);
+
+    private static final String[] MOTS_TABAC = {"tabac", "puff", "terrea", "cigarette"};
+
+    private final int code;
+
+    FamilleProduit(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Code enregistré dans les colonnes famille (TINYINT)
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Famille correspondant à un code lu en base (GENERAL pour un code inconnu)
+     */
+    public static FamilleProduit deCode(int code) {
+        return code == TABAC.code ? TABAC : GENERAL;
+    }
+
+    /**
+     * Déduit la famille d'un nom de catégorie (tabac, puff, terrea, cigarette)
+     * @param categorie Le nom de la catégorie, null accepté
+     */
+    public static FamilleProduit deCategorie(String categorie) {
+        if (categorie == null || categorie.isEmpty()) {
+            return GENERAL;
+        }
+        String minuscules = categorie.toLowerCase(Locale.ROOT);
+        for (String mot : MOTS_TABAC) {
+            if (minuscules.contains(mot)) {
+                return TABAC;
+            }
+        }
+        return GENERAL;
+    }
+}
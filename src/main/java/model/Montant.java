@@ -0,0 +1,217 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Montant monétaire immuable en centimes (entier long) et devise
+ *
+ * Remplace BigDecimal dans les modèles et les calculs du panier et des
+ * statistiques : les opérations se font sur des entiers, sans allocation pour
+ * les petits montants courants (mis en cache). La conversion vers et depuis les
+ * colonnes DECIMAL(10,2) ne se fait qu'à la frontière JDBC (of / toBigDecimal).
+ *
+ * Arrondi : au centime, la moitié s'éloignant de zéro (HALF_UP), comme la base.
+ */
+public final class Montant implements Comparable<Montant> {
+
+    public static final Currency EUR = Currency.getInstance("EUR");
+
+    // Montants en euros de 0,00 à 100,00 partagés (créés à la demande)
+    private static final int CACHE_MAX = 10_000;
+    private static final Montant[] CACHE = new Montant[CACHE_MAX + 1];
+
+    public static final Montant ZERO = centimes(0);
+
+    private static final char SEPARATEUR_DECIMAL =
+            DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+
+    private final long centimes;
+    private final Currency devise;
+
+    private Montant(long centimes, Currency devise) {
+        this.centimes = centimes;
+        this.devise = devise;
+    }
+
+    /**
+     * Montant en euros à partir d'un nombre de centimes
+     */
+    public static Montant centimes(long centimes) {
+        if (centimes >= 0 && centimes <= CACHE_MAX) {
+            Montant m = CACHE[(int) centimes];
+            if (m == null) {
+                m = new Montant(centimes, EUR);
+                CACHE[(int) centimes] = m; // course sans gravité : les instances sont immuables
+            }
+            return m;
+        }
+        return new Montant(centimes, EUR);
+    }
+
+    /**
+     * Montant dans une devise donnée à partir d'un nombre de centimes (unités mineures)
+     */
+    public static Montant centimes(long centimes, Currency devise) {
+        return EUR.equals(devise) ? centimes(centimes) : new Montant(centimes, devise);
+    }
+
+    /**
+     * Conversion depuis une valeur DECIMAL lue en base (arrondie au centime)
+     * @param valeur La valeur lue, null pour une colonne NULL
+     * @return Le montant, ZERO si la valeur est null
+     */
+    public static Montant of(BigDecimal valeur) {
+        if (valeur == null) {
+            return ZERO;
+        }
+        return centimes(valeur.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Lit un montant saisi (« 12.5 », « 12,50 »)
+     * @throws NumberFormatException Si le texte n'est pas un nombre
+     */
+    public static Montant parse(String texte) {
+        return of(new BigDecimal(texte.trim().replace(',', '.')));
+    }
+
+    /**
+     * Conversion vers une valeur DECIMAL(10,2) pour l'écriture en base
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centimes, 2);
+    }
+
+    public long getCentimes() {
+        return centimes;
+    }
+
+    public Currency getDevise() {
+        return devise;
+    }
+
+    public Montant plus(Montant autre) {
+        verifierDevise(autre);
+        return autre.centimes == 0 ? this : centimes(Math.addExact(centimes, autre.centimes), devise);
+    }
+
+    public Montant moins(Montant autre) {
+        verifierDevise(autre);
+        return autre.centimes == 0 ? this : centimes(Math.subtractExact(centimes, autre.centimes), devise);
+    }
+
+    /**
+     * Montant multiplié par une quantité (prix unitaire × quantité)
+     */
+    public Montant fois(long quantite) {
+        return quantite == 1 ? this : centimes(Math.multiplyExact(centimes, quantite), devise);
+    }
+
+    /**
+     * Part du montant pour un taux en points de base (2000 = 20 %), arrondie au centime
+     */
+    public Montant appliquerTaux(int pointsDeBase) {
+        return centimes(arrondir(Math.multiplyExact(centimes, pointsDeBase), 10_000), devise);
+    }
+
+    /**
+     * Montant divisé en parts égales (panier moyen), arrondi au centime
+     */
+    public Montant diviser(long diviseur) {
+        return centimes(arrondir(centimes, diviseur), devise);
+    }
+
+    /**
+     * Rapport de ce montant à un autre (0,25 pour un quart), 0 si l'autre est nul
+     */
+    public double rapport(Montant total) {
+        verifierDevise(total);
+        return total.centimes == 0 ? 0 : (double) centimes / total.centimes;
+    }
+
+    public int signum() {
+        return Long.signum(centimes);
+    }
+
+    public boolean isZero() {
+        return centimes == 0;
+    }
+
+    public double doubleValue() {
+        return centimes / 100.0;
+    }
+
+    /**
+     * Affichage avec deux décimales et le séparateur de la langue (équivalent de « %.2f »)
+     */
+    public String formater() {
+        return texte(SEPARATEUR_DECIMAL);
+    }
+
+    private String texte(char separateur) {
+        long abs = Math.abs(centimes);
+        long reste = abs % 100;
+        StringBuilder sb = new StringBuilder(16);
+        if (centimes < 0) {
+            sb.append('-');
+        }
+        sb.append(abs / 100).append(separateur);
+        if (reste < 10) {
+            sb.append('0');
+        }
+        return sb.append(reste).toString();
+    }
+
+    /**
+     * Arrondi HALF_UP de numerateur / denominateur
+     */
+    private static long arrondir(long numerateur, long denominateur) {
+        long quotient = numerateur / denominateur;
+        long reste = numerateur % denominateur;
+        if (Math.abs(reste) * 2 >= Math.abs(denominateur)) {
+            quotient += Long.signum(numerateur) * Long.signum(denominateur);
+        }
+        return quotient;
+    }
+
+    private void verifierDevise(Montant autre) {
+        if (!devise.equals(autre.devise)) {
+            throw new IllegalArgumentException("Devises différentes: " + devise + " et " + autre.devise);
+        }
+    }
+
+    @Override
+    public int compareTo(Montant autre) {
+        verifierDevise(autre);
+        return Long.compare(centimes, autre.centimes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Montant)) {
+            return false;
+        }
+        Montant autre = (Montant) o;
+        return centimes == autre.centimes && devise.equals(autre.devise);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(centimes) + devise.hashCode();
+    }
+
+    /**
+     * Valeur décimale brute (« 12.50 »), comme BigDecimal.toPlainString
+     */
+    @Override
+    public String toString() {
+        return texte('.');
+    }
+}
@@ -0,0 +1,203 @@
+package model;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import util.Config;
+import util.IntHashMap;
+
+/**
+ * Panier de la caisse : lignes observables et totaux tenus à jour au fil de l'eau
+ *
+ * Le total, la TVA (par taux) et le nombre d'articles sont cumulés en centimes
+ * (entiers exacts) à chaque ajout, retrait ou changement de quantité d'une ligne,
+ * sans reparcourir le panier. Ils sont exposés en propriétés observables pour
+ * que les libellés se mettent à jour seuls.
+ *
+ * Le prix et le taux de TVA d'une ligne sont relevés quand elle entre dans le
+ * panier ; seule sa quantité peut ensuite changer (voir {@link DetailVente#quantiteProperty()}).
+ *
+ * Les lignes sont indexées par id de produit (une ligne par produit) : retrouver
+ * la ligne d'un produit scanné se fait en O(1), sans parcourir le panier.
+ */
+public class Panier {
+
+    private final ObservableList<DetailVente> lignes = FXCollections.observableArrayList();
+    private final Map<DetailVente, Suivi> suivis = new IdentityHashMap<>();
+    private final IntHashMap<DetailVente> parProduit = new IntHashMap<>();
+
+    // Montant soumis à chaque taux (points de base -> centimes)
+    private final Map<Integer, Long> basesParTaux = new TreeMap<>();
+    private long totalCentimes = 0;
+    private int nombreArticles = 0;
+
+    private final ReadOnlyObjectWrapper<Montant> total = new ReadOnlyObjectWrapper<>(this, "total", Montant.ZERO);
+    private final ReadOnlyObjectWrapper<Montant> tva = new ReadOnlyObjectWrapper<>(this, "tva", Montant.ZERO);
+    private final ReadOnlyIntegerWrapper articles = new ReadOnlyIntegerWrapper(this, "nombreArticles", 0);
+
+    public Panier() {
+        lignes.addListener(this::surChangement);
+    }
+
+    /**
+     * Lignes du panier (liste observable à afficher et à modifier)
+     */
+    public ObservableList<DetailVente> getLignes() {
+        return lignes;
+    }
+
+    public Montant getTotal() {
+        return total.get();
+    }
+
+    public ReadOnlyObjectProperty<Montant> totalProperty() {
+        return total.getReadOnlyProperty();
+    }
+
+    public Montant getTva() {
+        return tva.get();
+    }
+
+    public ReadOnlyObjectProperty<Montant> tvaProperty() {
+        return tva.getReadOnlyProperty();
+    }
+
+    /**
+     * Nombre d'articles (somme des quantités)
+     */
+    public int getNombreArticles() {
+        return articles.get();
+    }
+
+    public ReadOnlyIntegerProperty nombreArticlesProperty() {
+        return articles.getReadOnlyProperty();
+    }
+
+    /**
+     * Ligne d'un produit
+     * @return La ligne, null si le produit n'est pas dans le panier
+     */
+    public DetailVente trouver(int produitId) {
+        return parProduit.get(produitId);
+    }
+
+    /**
+     * Ajoute une quantité d'un produit : incrémente sa ligne ou en crée une nouvelle
+     * (le contrôle du stock reste à la charge de l'appelant)
+     * @return La ligne du produit
+     */
+    public DetailVente ajouter(Produit produit, int quantite) {
+        DetailVente detail = parProduit.get(produit.getId());
+        if (detail != null) {
+            detail.setQuantite(detail.getQuantite() + quantite);
+            return detail;
+        }
+        detail = new DetailVente();
+        detail.setProduitId(produit.getId());
+        detail.setQuantite(quantite);
+        detail.setPrixVenteUnitaire(produit.getPrixVenteDefaut());
+        detail.setPrixAchatUnitaire(produit.getPrixAchatActuel());
+        detail.setProduit(produit);
+        lignes.add(detail);
+        return detail;
+    }
+
+    /**
+     * Retire la ligne d'un produit
+     * @return true si le produit était dans le panier
+     */
+    public boolean retirer(int produitId) {
+        DetailVente detail = parProduit.get(produitId);
+        return detail != null && lignes.remove(detail);
+    }
+
+    /**
+     * Taux de TVA d'un produit, en points de base (selon sa catégorie, voir Config)
+     */
+    public static int tauxTva(Produit produit) {
+        if (produit == null || produit.getCategorie() == null) {
+            return Config.TVA_TAUX_DEFAUT;
+        }
+        return Config.TVA_TAUX_PAR_CATEGORIE.getOrDefault(produit.getCategorie(), Config.TVA_TAUX_DEFAUT);
+    }
+
+    // ========================================
+    // CUMULS
+    // ========================================
+
+    private void surChangement(ListChangeListener.Change<? extends DetailVente> c) {
+        while (c.next()) {
+            for (DetailVente d : c.getRemoved()) {
+                Suivi suivi = suivis.remove(d);
+                if (suivi != null) {
+                    d.quantiteProperty().removeListener(suivi);
+                    cumuler(suivi, -d.getQuantite());
+                    if (parProduit.get(d.getProduitId()) == d) {
+                        parProduit.remove(d.getProduitId());
+                    }
+                }
+            }
+            for (DetailVente d : c.getAddedSubList()) {
+                if (suivis.containsKey(d)) {
+                    continue; // ligne déjà suivie (déplacée dans la liste)
+                }
+                Montant prix = d.getPrixVenteUnitaire();
+                Suivi suivi = new Suivi(prix != null ? prix.getCentimes() : 0, tauxTva(d.getProduit()));
+                suivis.put(d, suivi);
+                d.quantiteProperty().addListener(suivi);
+                if (parProduit.get(d.getProduitId()) == null) {
+                    parProduit.put(d.getProduitId(), d);
+                }
+                cumuler(suivi, d.getQuantite());
+            }
+        }
+        publier();
+    }
+
+    private void cumuler(Suivi suivi, int deltaQuantite) {
+        long montant = suivi.prixCentimes * deltaQuantite;
+        totalCentimes += montant;
+        basesParTaux.merge(suivi.taux, montant, Long::sum);
+        nombreArticles += deltaQuantite;
+    }
+
+    private void publier() {
+        // Arrondi par taux : au plus quelques taux, indépendamment de la taille du panier
+        long tvaCentimes = 0;
+        for (Map.Entry<Integer, Long> e : basesParTaux.entrySet()) {
+            tvaCentimes += Montant.centimes(e.getValue()).appliquerTaux(e.getKey()).getCentimes();
+        }
+        total.set(Montant.centimes(totalCentimes));
+        tva.set(Montant.centimes(tvaCentimes));
+        articles.set(nombreArticles);
+    }
+
+    /**
+     * Prix et taux relevés à l'entrée de la ligne; suit ses changements de quantité
+     */
+    private final class Suivi implements ChangeListener<Number> {
+        private final long prixCentimes;
+        private final int taux;
+
+        Suivi(long prixCentimes, int taux) {
+            this.prixCentimes = prixCentimes;
+            this.taux = taux;
+        }
+
+        @Override
+        public void changed(ObservableValue<? extends Number> obs, Number ancienne, Number nouvelle) {
+            cumuler(this, nouvelle.intValue() - ancienne.intValue());
+            publier();
+        }
+    }
+}
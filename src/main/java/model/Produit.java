@@ -1,7 +1,5 @@
 package model;
 
-import java.math.BigDecimal;
-
 /**
  * Classe POJO pour l'entité Produit
  */
@@ -10,21 +8,23 @@ public class Produit {
     private String codeBarre;
     private String nom;
     private String categorie;
-    private BigDecimal prixAchatActuel;
-    private BigDecimal prixVenteDefaut;
+    private Montant prixAchatActuel;
+    private Montant prixVenteDefaut;
     private int quantiteStock;
     private String unite; // kg, grammes, unité, litre, etc.
     private int seuilAlerte;
+    private int famille; // code FamilleProduit, déduit de la catégorie
     
     // Constructeurs
     public Produit() {
     }
     
-    public Produit(String codeBarre, String nom, String categorie, BigDecimal prixAchatActuel, 
-                   BigDecimal prixVenteDefaut, int quantiteStock, String unite, int seuilAlerte) {
+    public Produit(String codeBarre, String nom, String categorie, Montant prixAchatActuel, 
+                   Montant prixVenteDefaut, int quantiteStock, String unite, int seuilAlerte) {
         this.codeBarre = codeBarre;
         this.nom = nom;
         this.categorie = categorie;
+        this.famille = FamilleProduit.deCategorie(categorie).getCode();
         this.prixAchatActuel = prixAchatActuel;
         this.prixVenteDefaut = prixVenteDefaut;
         this.quantiteStock = quantiteStock;
@@ -32,12 +32,13 @@ public class Produit {
         this.seuilAlerte = seuilAlerte;
     }
     
-    public Produit(int id, String codeBarre, String nom, String categorie, BigDecimal prixAchatActuel, 
-                   BigDecimal prixVenteDefaut, int quantiteStock, String unite, int seuilAlerte) {
+    public Produit(int id, String codeBarre, String nom, String categorie, Montant prixAchatActuel, 
+                   Montant prixVenteDefaut, int quantiteStock, String unite, int seuilAlerte) {
         this.id = id;
         this.codeBarre = codeBarre;
         this.nom = nom;
         this.categorie = categorie;
+        this.famille = FamilleProduit.deCategorie(categorie).getCode();
         this.prixAchatActuel = prixAchatActuel;
         this.prixVenteDefaut = prixVenteDefaut;
         this.quantiteStock = quantiteStock;
@@ -74,23 +75,41 @@ public class Produit {
         return categorie;
     }
     
+    /**
+     * Change la catégorie et recalcule la famille qui en découle
+     */
     public void setCategorie(String categorie) {
         this.categorie = categorie;
+        this.famille = FamilleProduit.deCategorie(categorie).getCode();
+    }
+    
+    /**
+     * Code de la famille (FamilleProduit.getCode)
+     */
+    public int getFamille() {
+        return famille;
+    }
+    
+    /**
+     * Famille lue en base (colonne produits.famille)
+     */
+    public void setFamille(int famille) {
+        this.famille = famille;
     }
     
-    public BigDecimal getPrixAchatActuel() {
+    public Montant getPrixAchatActuel() {
         return prixAchatActuel;
     }
     
-    public void setPrixAchatActuel(BigDecimal prixAchatActuel) {
+    public void setPrixAchatActuel(Montant prixAchatActuel) {
         this.prixAchatActuel = prixAchatActuel;
     }
     
-    public BigDecimal getPrixVenteDefaut() {
+    public Montant getPrixVenteDefaut() {
         return prixVenteDefaut;
     }
     
-    public void setPrixVenteDefaut(BigDecimal prixVenteDefaut) {
+    public void setPrixVenteDefaut(Montant prixVenteDefaut) {
         this.prixVenteDefaut = prixVenteDefaut;
     }
     
@@ -126,10 +145,7 @@ public class Produit {
      * Vérifie si le produit est de type tabac (tabac, puff, terrea, etc.)
      */
     public boolean isTabac() {
-        if (categorie == null) return false;
-        String catLower = categorie.toLowerCase();
-        return catLower.contains("tabac") || catLower.contains("puff") || 
-               catLower.contains("terrea") || catLower.contains("cigarette");
+        return famille == FamilleProduit.TABAC.getCode();
     }
     
     @Override
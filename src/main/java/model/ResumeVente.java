@@ -0,0 +1,55 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Résumé d'une vente pour l'historique (sans ses lignes)
+ * Sert aussi de curseur pour la pagination : la page suivante commence après
+ * le couple (date, id) du dernier résumé chargé.
+ */
+public class ResumeVente {
+    private final int id;
+    private final LocalDateTime dateVente;
+    private final Montant totalVente;
+    private final int nbArticles;
+    private final String caissier;
+
+    public ResumeVente(int id, LocalDateTime dateVente, Montant totalVente, int nbArticles, String caissier) {
+        this.id = id;
+        this.dateVente = dateVente;
+        this.totalVente = totalVente;
+        this.nbArticles = nbArticles;
+        this.caissier = caissier;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public LocalDateTime getDateVente() {
+        return dateVente;
+    }
+
+    public Montant getTotalVente() {
+        return totalVente;
+    }
+
+    public int getNbArticles() {
+        return nbArticles;
+    }
+
+    public String getCaissier() {
+        return caissier;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumeVente{" +
+                "id=" + id +
+                ", dateVente=" + dateVente +
+                ", totalVente=" + totalVente +
+                ", nbArticles=" + nbArticles +
+                ", caissier='" + caissier + '\'' +
+                '}';
+    }
+}
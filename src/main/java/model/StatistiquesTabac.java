@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Recettes des produits de tabac (jour, semaine, mois, total) et nombre de ventes
+ * concernées (voir VenteDAO.getStatistiquesTabac)
+ */
+public class StatistiquesTabac {
+
+    public static final StatistiquesTabac VIDE =
+            new StatistiquesTabac(Montant.ZERO, Montant.ZERO, Montant.ZERO, Montant.ZERO, 0);
+
+    private final Montant recetteAujourdhui;
+    private final Montant recetteSemaine;
+    private final Montant recetteMois;
+    private final Montant totalGeneral;
+    private final int nombreVentes;
+
+    public StatistiquesTabac(Montant recetteAujourdhui, Montant recetteSemaine, Montant recetteMois,
+                             Montant totalGeneral, int nombreVentes) {
+        this.recetteAujourdhui = recetteAujourdhui;
+        this.recetteSemaine = recetteSemaine;
+        this.recetteMois = recetteMois;
+        this.totalGeneral = totalGeneral;
+        this.nombreVentes = nombreVentes;
+    }
+
+    public Montant getRecetteAujourdhui() {
+        return recetteAujourdhui;
+    }
+
+    public Montant getRecetteSemaine() {
+        return recetteSemaine;
+    }
+
+    public Montant getRecetteMois() {
+        return recetteMois;
+    }
+
+    public Montant getTotalGeneral() {
+        return totalGeneral;
+    }
+
+    /**
+     * Nombre de ventes contenant au moins un produit de tabac, depuis le début
+     */
+    public int getNombreVentes() {
+        return nombreVentes;
+    }
+}
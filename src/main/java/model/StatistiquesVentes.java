@@ -0,0 +1,187 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Statistiques de ventes découpées en périodes (heure, jour, semaine ou mois)
+ *
+ * Résultat compact : une case par période entre le début et la fin demandés
+ * (périodes sans vente comprises), montants stockés en centimes dans des
+ * tableaux de types primitifs.
+ */
+public class StatistiquesVentes {
+
+    /**
+     * Taille des périodes
+     */
+    public enum Granularite {
+        HEURE, JOUR, SEMAINE, MOIS;
+
+        /**
+         * Début de la période contenant cette date (les semaines commencent le lundi)
+         */
+        public LocalDateTime debutPeriode(LocalDateTime date) {
+            switch (this) {
+                case HEURE:
+                    return date.truncatedTo(ChronoUnit.HOURS);
+                case JOUR:
+                    return date.truncatedTo(ChronoUnit.DAYS);
+                case SEMAINE:
+                    return date.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                default:
+                    return date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            }
+        }
+
+        /**
+         * Début de la période suivante
+         */
+        public LocalDateTime suivante(LocalDateTime debutPeriode) {
+            switch (this) {
+                case HEURE:
+                    return debutPeriode.plusHours(1);
+                case JOUR:
+                    return debutPeriode.plusDays(1);
+                case SEMAINE:
+                    return debutPeriode.plusWeeks(1);
+                default:
+                    return debutPeriode.plusMonths(1);
+            }
+        }
+    }
+
+    private final Granularite granularite;
+    private final LocalDateTime[] debuts;
+    private final long[] caCentimes;
+    private final long[] beneficeCentimes;
+    private final int[] nombreVentes;
+
+    /**
+     * Crée des statistiques à zéro pour toutes les périodes de [debut, fin[
+     */
+    public StatistiquesVentes(LocalDateTime debut, LocalDateTime fin, Granularite granularite) {
+        this.granularite = granularite;
+        int n = 0;
+        for (LocalDateTime d = granularite.debutPeriode(debut); d.isBefore(fin); d = granularite.suivante(d)) {
+            n++;
+        }
+        this.debuts = new LocalDateTime[n];
+        this.caCentimes = new long[n];
+        this.beneficeCentimes = new long[n];
+        this.nombreVentes = new int[n];
+        LocalDateTime d = granularite.debutPeriode(debut);
+        for (int i = 0; i < n; i++) {
+            debuts[i] = d;
+            d = granularite.suivante(d);
+        }
+    }
+
+    /**
+     * Renseigne une période (utilisé par le DAO)
+     * @return false si la date ne correspond à aucune période
+     */
+    public boolean setPeriode(LocalDateTime debutPeriode, int nbVentes, Montant ca, Montant benefice) {
+        int i = indexOf(debutPeriode);
+        if (i < 0) {
+            return false;
+        }
+        nombreVentes[i] = nbVentes;
+        caCentimes[i] = enCentimes(ca);
+        beneficeCentimes[i] = enCentimes(benefice);
+        return true;
+    }
+
+    public Granularite getGranularite() {
+        return granularite;
+    }
+
+    /**
+     * Nombre de périodes
+     */
+    public int size() {
+        return debuts.length;
+    }
+
+    public LocalDateTime getDebut(int i) {
+        return debuts[i];
+    }
+
+    public int getNombreVentes(int i) {
+        return nombreVentes[i];
+    }
+
+    public Montant getCA(int i) {
+        return Montant.centimes(caCentimes[i]);
+    }
+
+    public Montant getBenefice(int i) {
+        return Montant.centimes(beneficeCentimes[i]);
+    }
+
+    public Montant getPanierMoyen(int i) {
+        return panierMoyen(caCentimes[i], nombreVentes[i]);
+    }
+
+    // ========================================
+    // CUMULS SUR LES PÉRIODES [de, a[
+    // ========================================
+
+    public int getNombreVentes(int de, int a) {
+        int total = 0;
+        for (int i = Math.max(0, de); i < Math.min(a, size()); i++) {
+            total += nombreVentes[i];
+        }
+        return total;
+    }
+
+    public Montant getCA(int de, int a) {
+        return Montant.centimes(somme(caCentimes, de, a));
+    }
+
+    public Montant getBenefice(int de, int a) {
+        return Montant.centimes(somme(beneficeCentimes, de, a));
+    }
+
+    public Montant getPanierMoyen(int de, int a) {
+        return panierMoyen(somme(caCentimes, de, a), getNombreVentes(de, a));
+    }
+
+    private int indexOf(LocalDateTime debutPeriode) {
+        int bas = 0;
+        int haut = debuts.length - 1;
+        while (bas <= haut) {
+            int milieu = (bas + haut) >>> 1;
+            int cmp = debuts[milieu].compareTo(debutPeriode);
+            if (cmp == 0) {
+                return milieu;
+            } else if (cmp < 0) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu - 1;
+            }
+        }
+        return -1;
+    }
+
+    private long somme(long[] valeurs, int de, int a) {
+        long total = 0;
+        for (int i = Math.max(0, de); i < Math.min(a, size()); i++) {
+            total += valeurs[i];
+        }
+        return total;
+    }
+
+    private static Montant panierMoyen(long caCentimes, int nbVentes) {
+        if (nbVentes == 0) {
+            return Montant.ZERO;
+        }
+        return Montant.centimes(caCentimes).diviser(nbVentes);
+    }
+
+    private static long enCentimes(Montant montant) {
+        return montant != null ? montant.getCentimes() : 0;
+    }
+}
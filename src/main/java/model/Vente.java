@@ -1,6 +1,5 @@
 package model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,8 +10,9 @@ import java.util.List;
 public class Vente {
     private int id;
     private LocalDateTime dateVente;
-    private BigDecimal totalVente;
+    private Montant totalVente;
     private int utilisateurId;
+    private String reference; // clé d'idempotence attribuée à la soumission
     private List<DetailVente> details;
     
     // Constructeurs
@@ -20,14 +20,14 @@ public class Vente {
         this.details = new ArrayList<>();
     }
     
-    public Vente(LocalDateTime dateVente, BigDecimal totalVente, int utilisateurId) {
+    public Vente(LocalDateTime dateVente, Montant totalVente, int utilisateurId) {
         this.dateVente = dateVente;
         this.totalVente = totalVente;
         this.utilisateurId = utilisateurId;
         this.details = new ArrayList<>();
     }
     
-    public Vente(int id, LocalDateTime dateVente, BigDecimal totalVente, int utilisateurId) {
+    public Vente(int id, LocalDateTime dateVente, Montant totalVente, int utilisateurId) {
         this.id = id;
         this.dateVente = dateVente;
         this.totalVente = totalVente;
@@ -52,11 +52,11 @@ public class Vente {
         this.dateVente = dateVente;
     }
     
-    public BigDecimal getTotalVente() {
+    public Montant getTotalVente() {
         return totalVente;
     }
     
-    public void setTotalVente(BigDecimal totalVente) {
+    public void setTotalVente(Montant totalVente) {
         this.totalVente = totalVente;
     }
     
@@ -68,6 +68,14 @@ public class Vente {
         this.utilisateurId = utilisateurId;
     }
     
+    public String getReference() {
+        return reference;
+    }
+    
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+    
     public List<DetailVente> getDetails() {
         return details;
     }
@@ -0,0 +1,55 @@
+package util;
+
+/**
+ * Mesure le temps de SecurityUtil.checkPassword selon le facteur de coût BCrypt
+ *
+ * Usage: java util.BCryptBenchmark [cible_ms] [cout_min] [cout_max]
+ * (par défaut 250 ms, coûts 8 à 14). À lancer sur le matériel des postes de caisse,
+ * puis reporter le coût conseillé dans Config.BCRYPT_COUT.
+ */
+public class BCryptBenchmark {
+    
+    private static final int MESURES = 5;
+    
+    public static void main(String[] args) {
+        long cibleMs = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        int coutMin = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int coutMax = args.length > 2 ? Integer.parseInt(args[2]) : 14;
+        
+        System.out.println("=== Benchmark BCrypt (checkPassword) ===");
+        System.out.println("Cible: " + cibleMs + " ms par vérification, coût actuel: " + Config.BCRYPT_COUT);
+        System.out.println();
+        
+        // Préchauffage (chargement des classes, compilation JIT)
+        String hashPrechauffage = SecurityUtil.hashPassword("prechauffage", coutMin);
+        for (int i = 0; i < 3; i++) {
+            SecurityUtil.checkPassword("prechauffage", hashPrechauffage);
+        }
+        
+        int conseille = coutMin;
+        for (int cout = coutMin; cout <= coutMax; cout++) {
+            String hash = SecurityUtil.hashPassword("motdepasse-test", cout);
+            long meilleur = Long.MAX_VALUE;
+            long total = 0;
+            for (int i = 0; i < MESURES; i++) {
+                long debut = System.nanoTime();
+                SecurityUtil.checkPassword("motdepasse-test", hash);
+                long duree = System.nanoTime() - debut;
+                meilleur = Math.min(meilleur, duree);
+                total += duree;
+            }
+            double moyenneMs = total / (double) MESURES / 1_000_000;
+            System.out.println(String.format("Coût %2d : %8.1f ms en moyenne (meilleur %.1f ms)",
+                    cout, moyenneMs, meilleur / 1_000_000.0));
+            
+            if (moyenneMs <= cibleMs) {
+                conseille = cout;
+            } else {
+                break; // chaque incrément double le temps : inutile d'aller plus loin
+            }
+        }
+        
+        System.out.println();
+        System.out.println("Coût conseillé pour " + cibleMs + " ms : " + conseille);
+    }
+}
@@ -0,0 +1,201 @@
+package util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+/**
+ * Chargement des données des écrans en arrière-plan
+ *
+ * Les requêtes s'exécutent sur un petit pool de threads partagé
+ * (Config.CHARGEMENT_THREADS) et le résultat est publié en une seule fois sur le
+ * thread JavaFX : une requête lente ne fige plus la fenêtre.
+ *
+ * Chaque chargement est rattaché à un nœud de l'écran et à une clé :
+ * - une nouvelle demande avec la même clé remplace la précédente (seul le
+ *   résultat le plus récent est affiché) ;
+ * - quand le nœud quitte la fenêtre (changement d'écran), ses chargements
+ *   sont annulés et leurs résultats ignorés ;
+ * - une TableView ou une ListView affiche un indicateur de progression pendant
+ *   le chargement.
+ *
+ * Les méthodes publiques s'appellent depuis le thread JavaFX.
+ */
+public final class BackgroundLoader {
+
+    private static final AtomicInteger COMPTEUR = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Config.CHARGEMENT_THREADS, r -> {
+        Thread t = new Thread(r, "chargement-donnees-" + COMPTEUR.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Chargements en cours par nœud (thread JavaFX uniquement)
+    private static final Map<Node, Map<String, Task<?>>> EN_COURS = new WeakHashMap<>();
+    private static final Map<Node, Node> PLACEHOLDERS = new WeakHashMap<>();
+
+    private BackgroundLoader() {
+    }
+
+    /**
+     * Lance un chargement en arrière-plan
+     * @param vue Nœud de l'écran auquel le chargement est rattaché
+     * @param cle Identifiant du chargement pour ce nœud (ex: "ventes")
+     * @param chargement Travail exécuté hors du thread JavaFX (requêtes DAO)
+     * @param affichage Publication du résultat, sur le thread JavaFX
+     * @return La tâche lancée
+     */
+    public static <T> Task<T> charger(Node vue, String cle, Callable<T> chargement, Consumer<? super T> affichage) {
+        return charger(vue, cle, chargement, affichage, null);
+    }
+
+    /**
+     * Lance un chargement en arrière-plan
+     * @param erreur Appelé sur le thread JavaFX si le chargement échoue (peut être null)
+     * @see #charger(Node, String, Callable, Consumer)
+     */
+    public static <T> Task<T> charger(Node vue, String cle, Callable<T> chargement,
+                                      Consumer<? super T> affichage, Consumer<Throwable> erreur) {
+        Map<String, Task<?>> taches = EN_COURS.computeIfAbsent(vue, v -> {
+            surveillerDepart(v);
+            return new HashMap<>();
+        });
+        Task<?> precedente = taches.remove(cle);
+        if (precedente != null) {
+            precedente.cancel(false); // le thread n'est pas interrompu au milieu d'une requête JDBC
+        }
+
+        Task<T> tache = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return chargement.call();
+            }
+        };
+        if (taches.isEmpty()) {
+            afficherProgression(vue);
+        }
+        taches.put(cle, tache);
+
+        tache.setOnSucceeded(e -> {
+            if (terminer(vue, cle, tache)) {
+                affichage.accept(tache.getValue());
+            }
+        });
+        tache.setOnFailed(e -> {
+            if (terminer(vue, cle, tache)) {
+                Throwable ex = tache.getException();
+                System.err.println("Erreur lors du chargement (" + cle + "): " + ex.getMessage());
+                if (erreur != null) {
+                    erreur.accept(ex);
+                }
+            }
+        });
+        tache.setOnCancelled(e -> terminer(vue, cle, tache));
+
+        EXECUTOR.execute(tache);
+        return tache;
+    }
+
+    /**
+     * Indique si un chargement est en cours pour ce nœud
+     */
+    public static boolean isEnCours(Node vue) {
+        Map<String, Task<?>> taches = EN_COURS.get(vue);
+        return taches != null && !taches.isEmpty();
+    }
+
+    /**
+     * Annule tous les chargements rattachés à ce nœud
+     */
+    public static void annuler(Node vue) {
+        Map<String, Task<?>> taches = EN_COURS.get(vue);
+        if (taches == null) {
+            return;
+        }
+        for (Task<?> t : taches.values()) {
+            t.cancel(false);
+        }
+        taches.clear();
+        restaurerPlaceholder(vue);
+    }
+
+    /**
+     * Annule le chargement rattaché à ce nœud pour cette clé (son résultat est ignoré)
+     */
+    public static void annuler(Node vue, String cle) {
+        Map<String, Task<?>> taches = EN_COURS.get(vue);
+        if (taches == null) {
+            return;
+        }
+        Task<?> tache = taches.remove(cle);
+        if (tache != null) {
+            tache.cancel(false);
+        }
+        if (taches.isEmpty()) {
+            restaurerPlaceholder(vue);
+        }
+    }
+
+    /**
+     * @return true si la tâche était le chargement courant pour cette clé
+     */
+    private static boolean terminer(Node vue, String cle, Task<?> tache) {
+        Map<String, Task<?>> taches = EN_COURS.get(vue);
+        if (taches == null || !taches.remove(cle, tache)) {
+            return false; // remplacée ou annulée entre-temps
+        }
+        if (taches.isEmpty()) {
+            restaurerPlaceholder(vue);
+        }
+        return true;
+    }
+
+    /**
+     * Annule les chargements quand le nœud quitte sa fenêtre (la scène est remplacée)
+     */
+    private static void surveillerDepart(Node vue) {
+        vue.sceneProperty().flatMap(Scene::windowProperty).addListener((obs, ancienne, nouvelle) -> {
+            if (ancienne != null && nouvelle == null) {
+                annuler(vue);
+            }
+        });
+    }
+
+    private static void afficherProgression(Node vue) {
+        ProgressIndicator progression = new ProgressIndicator();
+        progression.setMaxSize(48, 48);
+        if (vue instanceof TableView) {
+            TableView<?> table = (TableView<?>) vue;
+            PLACEHOLDERS.put(vue, table.getPlaceholder());
+            table.setPlaceholder(progression);
+        } else if (vue instanceof ListView) {
+            ListView<?> liste = (ListView<?>) vue;
+            PLACEHOLDERS.put(vue, liste.getPlaceholder());
+            liste.setPlaceholder(progression);
+        }
+    }
+
+    private static void restaurerPlaceholder(Node vue) {
+        if (!PLACEHOLDERS.containsKey(vue)) {
+            return;
+        }
+        Node placeholder = PLACEHOLDERS.remove(vue);
+        if (vue instanceof TableView) {
+            ((TableView<?>) vue).setPlaceholder(placeholder);
+        } else if (vue instanceof ListView) {
+            ((ListView<?>) vue).setPlaceholder(placeholder);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.util.Duration;
+import model.Produit;
+
+/**
+ * Saisie des codes-barres d'une douchette en émulation clavier
+ *
+ * Une douchette « tape » le code beaucoup plus vite qu'une personne : les
+ * caractères arrivant à moins de Config.SCAN_INTERVALLE_MAX_MS d'intervalle forment
+ * une rafale, et une rafale d'au moins Config.SCAN_LONGUEUR_MIN caractères est un scan.
+ * Le scan se termine sur la touche Entrée (qui n'est alors pas transmise au champ)
+ * ou après Config.SCAN_FIN_MS sans nouvelle touche ; ses caractères sont retirés
+ * du champ, prêt pour le scan suivant.
+ *
+ * Chaque code est résolu hors du thread JavaFX par un unique thread partagé, puis
+ * livré sur le thread JavaFX : un événement par scan, dans l'ordre des scans,
+ * sans attente ni perte même pour des scans enchaînés.
+ *
+ * La frappe manuelle reste dans le champ ; elle est signalée (optionnellement)
+ * Config.SAISIE_DELAI_MS après la dernière modification du texte.
+ *
+ * Les méthodes publiques s'appellent depuis le thread JavaFX.
+ */
+public final class BarcodeScanInput {
+
+    private static final long INTERVALLE_MAX_NS = Config.SCAN_INTERVALLE_MAX_MS * 1_000_000L;
+
+    private static final ExecutorService RESOLUTION = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "resolution-codes-barres");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final TextField champ;
+    private final Function<String, Produit> resolution;
+    private final BiConsumer<String, Produit> surScan;
+    private Consumer<String> surSaisie;
+
+    // Rafale de caractères en cours (thread JavaFX uniquement)
+    private final StringBuilder rafale = new StringBuilder();
+    private long premiereTouche;
+    private long derniereTouche;
+
+    private final PauseTransition finScan = new PauseTransition(Duration.millis(Config.SCAN_FIN_MS));
+    private final PauseTransition finSaisie = new PauseTransition(Duration.millis(Config.SAISIE_DELAI_MS));
+    private boolean retraitScan;
+
+    private BarcodeScanInput(TextField champ, Function<String, Produit> resolution,
+                             BiConsumer<String, Produit> surScan) {
+        this.champ = champ;
+        this.resolution = resolution;
+        this.surScan = surScan;
+    }
+
+    /**
+     * Branche la lecture des scans sur un champ de saisie
+     * @param champ Champ qui reçoit la frappe de la douchette
+     * @param resolution Recherche du produit par code-barres, exécutée hors du thread JavaFX
+     * @param surScan Reçoit le code et le produit (null si inconnu), sur le thread JavaFX
+     * @return Le composant installé
+     */
+    public static BarcodeScanInput installer(TextField champ, Function<String, Produit> resolution,
+                                             BiConsumer<String, Produit> surScan) {
+        BarcodeScanInput scan = new BarcodeScanInput(champ, resolution, surScan);
+        champ.addEventFilter(KeyEvent.KEY_TYPED, scan::toucheTapee);
+        champ.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.ENTER && scan.terminerRafale()) {
+                e.consume();
+            }
+        });
+        scan.finScan.setOnFinished(e -> scan.terminerRafale());
+        scan.finSaisie.setOnFinished(e -> {
+            if (scan.surSaisie != null) {
+                String texte = champ.getText();
+                scan.surSaisie.accept(texte == null ? "" : texte.trim());
+            }
+        });
+        champ.textProperty().addListener((obs, ancien, nouveau) -> {
+            if (scan.retraitScan || scan.surSaisie == null) {
+                return;
+            }
+            scan.finSaisie.playFromStart();
+        });
+        return scan;
+    }
+
+    /**
+     * Définit le traitement de la saisie manuelle (texte du champ, après le délai de frappe)
+     */
+    public void setSurSaisie(Consumer<String> surSaisie) {
+        this.surSaisie = surSaisie;
+    }
+
+    /**
+     * Résout un code saisi à la main par le même circuit que les scans (ordre conservé)
+     */
+    public void soumettre(String code) {
+        RESOLUTION.execute(() -> {
+            Produit produit = null;
+            try {
+                produit = resolution.apply(code);
+            } catch (RuntimeException e) {
+                System.err.println("Erreur lors de la résolution du code-barres " + code + ": " + e.getMessage());
+            }
+            Produit resultat = produit;
+            Platform.runLater(() -> {
+                surScan.accept(code, resultat);
+                StartupTimeline.marquerUneFois("premier scan");
+            });
+        });
+    }
+
+    /**
+     * Indique si la frappe en cours a le rythme d'une douchette
+     */
+    public boolean isScanEnCours() {
+        int n = rafale.length();
+        return n >= 2 && (derniereTouche - premiereTouche) / (n - 1) <= INTERVALLE_MAX_NS;
+    }
+
+    private void toucheTapee(KeyEvent e) {
+        String caractere = e.getCharacter();
+        if (caractere.isEmpty() || Character.isISOControl(caractere.charAt(0))) {
+            return;
+        }
+        long maintenant = System.nanoTime();
+        if (rafale.length() > 0 && maintenant - derniereTouche > INTERVALLE_MAX_NS) {
+            terminerRafale(); // pause : la rafale précédente est finie
+        }
+        if (rafale.length() == 0) {
+            premiereTouche = maintenant;
+        }
+        rafale.append(caractere);
+        derniereTouche = maintenant;
+        finScan.playFromStart();
+    }
+
+    /**
+     * Clôt la rafale en cours ; si c'est un scan, le retire du champ et le soumet
+     * @return true si la rafale était un scan
+     */
+    private boolean terminerRafale() {
+        finScan.stop();
+        boolean scan = rafale.length() >= Config.SCAN_LONGUEUR_MIN && isScanEnCours();
+        String code = rafale.toString();
+        rafale.setLength(0);
+        if (!scan) {
+            return false;
+        }
+        retirerDuChamp(code);
+        soumettre(code);
+        return true;
+    }
+
+    private void retirerDuChamp(String code) {
+        String texte = champ.getText();
+        int debut = texte == null ? -1 : texte.lastIndexOf(code);
+        retraitScan = true;
+        try {
+            if (debut >= 0) {
+                champ.deleteText(debut, debut + code.length());
+            } else {
+                champ.clear();
+            }
+        } finally {
+            retraitScan = false;
+        }
+        finSaisie.stop();
+    }
+}
@@ -1,15 +1,77 @@
 package util;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Classe de configuration pour les constantes de connexion à la base de données
  */
 public class Config {
     // Configuration de la base de données MySQL
-    public static final String DB_URL = "jdbc:mysql://localhost:3306/2market?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+    public static final String DB_URL = "jdbc:mysql://localhost:3306/2market?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&useServerPrepStmts=true";
     public static final String DB_USER = "root";
     public static final String DB_PASSWORD = "";
-    
+
     // Nom de la base de données
     public static final String DATABASE_NAME = "2market";
-}
 
+    // Pool de connexions
+    public static final int POOL_MIN_SIZE = 2;
+    public static final int POOL_MAX_SIZE = 10;
+    public static final long POOL_BORROW_TIMEOUT_MS = 5_000;
+    public static final long POOL_IDLE_TIMEOUT_MS = 5 * 60_000;
+    public static final long POOL_LEAK_THRESHOLD_MS = 60_000; // 0 pour désactiver la détection de fuites
+    public static final int POOL_VALIDATION_TIMEOUT_S = 2;
+    public static final int POOL_STATEMENT_CACHE_SIZE = 64; // instructions préparées par connexion (0 pour désactiver)
+
+    // Catalogue des produits en mémoire
+    public static final long CATALOGUE_RAFRAICHISSEMENT_MS = 5 * 60_000; // rechargement complet (0 pour désactiver)
+
+    // Chargement des données des écrans en arrière-plan
+    public static final int CHARGEMENT_THREADS = 4;
+
+    // Mots de passe (BCrypt) : coût des nouveaux hachages, à choisir avec util.BCryptBenchmark
+    public static final int BCRYPT_COUT = 10;
+    // Reconnexion d'un caissier déjà vérifié sur ce poste sans nouveau calcul BCrypt (0 pour désactiver)
+    public static final long CONNEXION_CACHE_DUREE_MS = 8 * 60 * 60_000L;
+
+    // Préchauffage au démarrage (pool, catalogue, vues de caisse, BCrypt)
+    public static final int DEMARRAGE_THREADS = 3;
+
+    // Lecture des codes-barres (douchettes en émulation clavier)
+    public static final long SCAN_INTERVALLE_MAX_MS = 50; // au-delà, la frappe est considérée comme humaine
+    public static final long SCAN_FIN_MS = 100; // silence qui termine un scan sans touche Entrée
+    public static final int SCAN_LONGUEUR_MIN = 8;
+    public static final long SAISIE_DELAI_MS = 250; // recherche après la dernière frappe manuelle
+
+    // Vues de la caisse gardées en mémoire (chargées une fois, réaffichées sans rechargement FXML)
+    public static final List<String> VUES_EN_CACHE = List.of(
+            "/view/CaisseCategories.fxml",
+            "/view/CategorieProduits.fxml",
+            "/view/Caisse.fxml");
+
+    // Historique des ventes (pagination par curseur)
+    public static final int HISTORIQUE_VENTES_PAGE = 100;
+    public static final int TABAC_VENTES_AFFICHEES = 200; // ventes de tabac les plus récentes listées
+
+    // Enregistrement des ventes en arrière-plan
+    public static final int VENTE_TENTATIVES_MAX = 5;
+    public static final long VENTE_DELAI_RETENTATIVE_MS = 500; // doublé à chaque nouvelle tentative
+    public static final int VENTE_GROUPE_MAX = 50; // ventes par transaction en group commit (1 pour désactiver)
+    public static final long VENTE_GROUPE_FENETRE_MS = 5;
+
+    // TVA du panier, en points de base (2000 = 20 %), selon la catégorie du produit
+    public static final int TVA_TAUX_DEFAUT = 2000;
+    public static final Map<String, Integer> TVA_TAUX_PAR_CATEGORIE = Map.of(
+            "Alimentaire", 550);
+
+    // Export CSV des ventes (comptabilité)
+    public static final int EXPORT_PROGRESSION_LIGNES = 10_000; // lignes entre deux mises à jour de la progression
+
+    // Import CSV des produits (catalogue fournisseur)
+    public static final int IMPORT_LIGNES_PAR_REQUETE = 500; // lignes par INSERT multi-lignes, une transaction chacun
+
+    // Journal local des ventes (mode hors ligne)
+    public static final String JOURNAL_VENTES_DOSSIER = System.getProperty("user.home") + "/.2market/journal";
+    public static final long JOURNAL_REJEU_MS = 15_000;
+}
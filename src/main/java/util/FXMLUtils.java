@@ -12,6 +12,9 @@ import javafx.stage.Stage;
  */
 public class FXMLUtils {
     
+    // Clé, dans les propriétés de la racine, du contrôleur de la vue
+    private static final String CLE_CONTROLEUR = "fxml.controleur";
+    
     /**
      * Charge une vue FXML et retourne le Parent
      * @param fxmlPath Le chemin vers le fichier FXML (ex: "/view/Connexion.fxml")
@@ -20,20 +23,44 @@ public class FXMLUtils {
      */
     public static Parent loadFXML(String fxmlPath) throws IOException {
         FXMLLoader loader = new FXMLLoader(FXMLUtils.class.getResource(fxmlPath));
-        return loader.load();
+        Parent root = loader.load();
+        if (loader.getController() != null) {
+            root.getProperties().put(CLE_CONTROLEUR, loader.getController());
+        }
+        return root;
     }
     
     /**
-     * Charge une vue FXML et change la scène d'une fenêtre
+     * Retourne le contrôleur d'une vue chargée par FXMLUtils (null s'il n'y en a pas)
+     */
+    public static Object getControleur(Parent root) {
+        return root.getProperties().get(CLE_CONTROLEUR);
+    }
+    
+    /**
+     * Affiche une vue dans une fenêtre
+     * 
+     * La scène de la fenêtre est conservée : seule sa racine est remplacée. Les vues
+     * mises en cache (ViewRegistry) sont réaffichées sans nouveau chargement FXML ;
+     * les contrôleurs implémentant ViewLifecycle sont notifiés (onHide puis onShow).
+     * 
      * @param stage La fenêtre dont la scène doit être changée
      * @param fxmlPath Le chemin vers le fichier FXML
      * @param title Le titre de la fenêtre
      * @throws IOException Si le fichier FXML ne peut pas être chargé
      */
     public static void changeScene(Stage stage, String fxmlPath, String title) throws IOException {
-        Parent root = loadFXML(fxmlPath);
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
+        Parent root = ViewRegistry.getVue(fxmlPath);
+        Scene scene = stage.getScene();
+        if (scene == null) {
+            stage.setScene(new Scene(root));
+        } else if (scene.getRoot() != root) {
+            Parent ancienne = scene.getRoot();
+            scene.setRoot(root);
+            if (getControleur(ancienne) instanceof ViewLifecycle) {
+                ((ViewLifecycle) getControleur(ancienne)).onHide();
+            }
+        }
         stage.setTitle(title);
         
         // Mode plein écran pour les vues de caisse (tactile monitor)
@@ -41,8 +68,13 @@ public class FXMLUtils {
             stage.setFullScreen(true);
             stage.setFullScreenExitHint("Appuyez sur Échap pour quitter le mode plein écran");
         } else {
+            stage.sizeToScene();
             stage.centerOnScreen();
         }
+        
+        if (getControleur(root) instanceof ViewLifecycle) {
+            ((ViewLifecycle) getControleur(root)).onShow();
+        }
     }
     
     /**
@@ -55,7 +87,9 @@ public class FXMLUtils {
     public static Parent loadFXML(String fxmlPath, Object controller) throws IOException {
         FXMLLoader loader = new FXMLLoader(FXMLUtils.class.getResource(fxmlPath));
         loader.setController(controller);
-        return loader.load();
+        Parent root = loader.load();
+        root.getProperties().put(CLE_CONTROLEUR, controller);
+        return root;
     }
 }
 
@@ -0,0 +1,179 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage à clés int primitives (adressage ouvert, sondage linéaire)
+ *
+ * Évite le boxing des clés et les nœuds d'une HashMap&lt;Integer, V&gt; : get, put
+ * et remove en O(1) amorti, sans allocation hors agrandissement. Non synchronisée.
+ *
+ * @param <V> Type des valeurs (null n'est pas une valeur valide)
+ */
+public class IntHashMap<V> {
+
+    private static final int CLE_LIBRE = 0;
+
+    private int[] cles;
+    private Object[] valeurs;
+    private int taille = 0;
+    private int seuil;
+
+    // La clé 0 sert à marquer les cases libres : sa valeur est rangée à part
+    private V valeurCleZero = null;
+
+    public IntHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param capaciteInitiale Nombre d'entrées attendu
+     */
+    public IntHashMap(int capaciteInitiale) {
+        int capacite = Integer.highestOneBit(Math.max(4, capaciteInitiale * 2 - 1)) << 1;
+        allouer(capacite);
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    public boolean isEmpty() {
+        return taille == 0;
+    }
+
+    public boolean containsKey(int cle) {
+        return get(cle) != null;
+    }
+
+    /**
+     * @return La valeur associée, null si absente
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int cle) {
+        if (cle == CLE_LIBRE) {
+            return valeurCleZero;
+        }
+        int masque = cles.length - 1;
+        for (int i = indice(cle, masque); ; i = (i + 1) & masque) {
+            int k = cles[i];
+            if (k == cle) {
+                return (V) valeurs[i];
+            }
+            if (k == CLE_LIBRE) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Associe une valeur à une clé
+     * @return L'ancienne valeur, null si la clé était absente
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int cle, V valeur) {
+        if (valeur == null) {
+            throw new IllegalArgumentException("Valeur null");
+        }
+        if (cle == CLE_LIBRE) {
+            V ancienne = valeurCleZero;
+            valeurCleZero = valeur;
+            if (ancienne == null) {
+                taille++;
+            }
+            return ancienne;
+        }
+        int masque = cles.length - 1;
+        int i = indice(cle, masque);
+        while (cles[i] != CLE_LIBRE) {
+            if (cles[i] == cle) {
+                V ancienne = (V) valeurs[i];
+                valeurs[i] = valeur;
+                return ancienne;
+            }
+            i = (i + 1) & masque;
+        }
+        cles[i] = cle;
+        valeurs[i] = valeur;
+        if (++taille > seuil) {
+            agrandir();
+        }
+        return null;
+    }
+
+    /**
+     * Retire une clé
+     * @return La valeur retirée, null si la clé était absente
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int cle) {
+        if (cle == CLE_LIBRE) {
+            V ancienne = valeurCleZero;
+            if (ancienne != null) {
+                valeurCleZero = null;
+                taille--;
+            }
+            return ancienne;
+        }
+        int masque = cles.length - 1;
+        int i = indice(cle, masque);
+        while (cles[i] != cle) {
+            if (cles[i] == CLE_LIBRE) {
+                return null;
+            }
+            i = (i + 1) & masque;
+        }
+        V ancienne = (V) valeurs[i];
+        taille--;
+
+        // Suppression par décalage arrière : pas de pierre tombale, les sondages restent courts
+        int libre = i;
+        for (int j = (i + 1) & masque; cles[j] != CLE_LIBRE; j = (j + 1) & masque) {
+            int ideal = indice(cles[j], masque);
+            // L'entrée j peut-elle remonter dans la case libre sans sortir de sa séquence de sondage ?
+            if (((j - ideal) & masque) >= ((j - libre) & masque)) {
+                cles[libre] = cles[j];
+                valeurs[libre] = valeurs[j];
+                libre = j;
+            }
+        }
+        cles[libre] = CLE_LIBRE;
+        valeurs[libre] = null;
+        return ancienne;
+    }
+
+    public void clear() {
+        Arrays.fill(cles, CLE_LIBRE);
+        Arrays.fill(valeurs, null);
+        valeurCleZero = null;
+        taille = 0;
+    }
+
+    private void agrandir() {
+        int[] anciennesCles = cles;
+        Object[] anciennesValeurs = valeurs;
+        allouer(cles.length * 2);
+        int masque = cles.length - 1;
+        for (int j = 0; j < anciennesCles.length; j++) {
+            if (anciennesCles[j] != CLE_LIBRE) {
+                int i = indice(anciennesCles[j], masque);
+                while (cles[i] != CLE_LIBRE) {
+                    i = (i + 1) & masque;
+                }
+                cles[i] = anciennesCles[j];
+                valeurs[i] = anciennesValeurs[j];
+            }
+        }
+    }
+
+    private void allouer(int capacite) {
+        cles = new int[capacite];
+        valeurs = new Object[capacite];
+        seuil = capacite / 2; // facteur de charge 0,5
+    }
+
+    private static int indice(int cle, int masque) {
+        int h = cle * 0x9E3779B9; // mélange de Fibonacci : ids consécutifs bien répartis
+        return (h ^ (h >>> 16)) & masque;
+    }
+}
@@ -0,0 +1,35 @@
+package util;
+
+import dao.DBConnector;
+import dao.SchemaRegistry;
+import dao.VentesRollupDAO;
+
+/**
+ * Reconstruit la table d'agrégats des ventes (ventes_rollup_jour) à partir de l'historique
+ * À lancer après la migration database/add_ventes_rollup.sql ou après une correction manuelle des ventes
+ */
+public class ReconstruireRollup {
+
+    public static void main(String[] args) {
+        System.out.println("=== Reconstruction des agrégats de ventes ===");
+
+        try {
+            if (!DBConnector.testConnection()) {
+                System.out.println("✗ Connexion échouée !");
+                return;
+            }
+
+            SchemaRegistry.refresh();
+            if (new VentesRollupDAO().reconstruire()) {
+                System.out.println("✓ Agrégats reconstruits");
+            } else {
+                System.out.println("✗ Reconstruction impossible");
+            }
+        } catch (Exception e) {
+            System.err.println("✗ Erreur: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBConnector.closeConnection();
+        }
+    }
+}
@@ -8,12 +8,22 @@ import org.mindrot.jbcrypt.BCrypt;
 public class SecurityUtil {
     
     /**
-     * Hash un mot de passe en utilisant BCrypt
+     * Hash un mot de passe en utilisant BCrypt (coût Config.BCRYPT_COUT)
      * @param password Le mot de passe en clair
      * @return Le hash du mot de passe
      */
     public static String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+        return hashPassword(password, Config.BCRYPT_COUT);
+    }
+    
+    /**
+     * Hash un mot de passe en utilisant BCrypt avec un coût donné
+     * @param password Le mot de passe en clair
+     * @param cout Facteur de coût (log2 du nombre d'itérations, 4 à 31)
+     * @return Le hash du mot de passe
+     */
+    public static String hashPassword(String password, int cout) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(cout));
     }
     
     /**
@@ -0,0 +1,44 @@
+package util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chronologie du démarrage de l'application
+ *
+ * Chaque étape est affichée avec le temps écoulé depuis le lancement du
+ * processus, par exemple « [démarrage] +  840 ms  catalogue chargé ». Les étapes
+ * marquées une seule fois (première connexion, premier scan) donnent le temps
+ * jusqu'au premier article scanné après un redémarrage du poste.
+ */
+public final class StartupTimeline {
+
+    private static final long DEBUT_MS = ProcessHandle.current().info().startInstant()
+            .map(instant -> instant.toEpochMilli())
+            .orElse(System.currentTimeMillis());
+
+    private static final Set<String> ETAPES_UNIQUES = ConcurrentHashMap.newKeySet();
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Affiche une étape du démarrage
+     * @param etape Description de l'étape
+     */
+    public static void marquer(String etape) {
+        long ecoule = System.currentTimeMillis() - DEBUT_MS;
+        System.out.println(String.format("[démarrage] +%5d ms  %s (%s)",
+                ecoule, etape, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Affiche une étape seulement la première fois qu'elle est atteinte
+     * @param etape Description de l'étape
+     */
+    public static void marquerUneFois(String etape) {
+        if (ETAPES_UNIQUES.add(etape)) {
+            marquer(etape);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Classe utilitaire pour la normalisation des textes (noms de produits, recherches)
+ */
+public class TextUtil {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACES = Pattern.compile("\\s+");
+
+    /**
+     * Normalise un texte pour les comparaisons : minuscules, sans accents,
+     * espaces superflus supprimés ("  Crème  Brûlée " -> "creme brulee")
+     * @param texte Le texte à normaliser
+     * @return Le texte normalisé (chaîne vide si null)
+     */
+    public static String normaliser(String texte) {
+        if (texte == null || texte.isEmpty()) {
+            return "";
+        }
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACES.matcher(sansAccents.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
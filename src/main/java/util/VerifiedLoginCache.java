@@ -0,0 +1,123 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Cache des connexions déjà vérifiées sur ce poste
+ *
+ * Un caissier qui se reconnecte pendant son service ne repaie pas un calcul
+ * BCrypt complet : après une vérification BCrypt réussie, on garde pour son
+ * identifiant une empreinte HMAC-SHA256 de (identifiant, mot de passe, hash stocké),
+ * valable Config.CONNEXION_CACHE_DUREE_MS.
+ *
+ * Propriétés conservées :
+ * - ni le mot de passe ni son hash ne sont gardés, seulement l'empreinte ;
+ * - la clé HMAC est tirée au hasard au lancement et n'existe qu'en mémoire :
+ *   redémarrer le poste vide le cache ;
+ * - le hash stocké fait partie de l'empreinte : un changement de mot de passe
+ *   en base invalide l'entrée ;
+ * - seules les réussites sont mises en cache : un mot de passe faux passe
+ *   toujours par BCrypt, et la comparaison se fait en temps constant.
+ */
+public final class VerifiedLoginCache {
+
+    private static final String ALGORITHME = "HmacSHA256";
+
+    private static final VerifiedLoginCache INSTANCE = new VerifiedLoginCache();
+
+    private final Map<String, Entree> entrees = new ConcurrentHashMap<>();
+    private final SecretKeySpec cle;
+
+    private static final class Entree {
+        final byte[] empreinte;
+        final long expiration;
+
+        Entree(byte[] empreinte, long expiration) {
+            this.empreinte = empreinte;
+            this.expiration = expiration;
+        }
+    }
+
+    private VerifiedLoginCache() {
+        byte[] octets = new byte[32];
+        new SecureRandom().nextBytes(octets);
+        cle = new SecretKeySpec(octets, ALGORITHME);
+    }
+
+    public static VerifiedLoginCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Vérifie un mot de passe, par le cache si l'utilisateur a déjà été vérifié, sinon par BCrypt
+     * @param username Le nom d'utilisateur
+     * @param password Le mot de passe en clair
+     * @param hash Le hash BCrypt stocké en base
+     * @return true si le mot de passe correspond, false sinon
+     */
+    public boolean verifier(String username, String password, String hash) {
+        if (Config.CONNEXION_CACHE_DUREE_MS <= 0) {
+            return SecurityUtil.checkPassword(password, hash);
+        }
+
+        byte[] empreinte = empreinte(username, password, hash);
+        Entree entree = entrees.get(username);
+        if (empreinte != null && entree != null && System.currentTimeMillis() < entree.expiration
+                && MessageDigest.isEqual(entree.empreinte, empreinte)) {
+            return true;
+        }
+
+        if (!SecurityUtil.checkPassword(password, hash)) {
+            return false;
+        }
+        if (empreinte != null) {
+            entrees.put(username, new Entree(empreinte, System.currentTimeMillis() + Config.CONNEXION_CACHE_DUREE_MS));
+        }
+        return true;
+    }
+
+    /**
+     * Oublie la vérification d'un utilisateur (compte modifié ou supprimé)
+     */
+    public void invalider(String username) {
+        entrees.remove(username);
+    }
+
+    /**
+     * Oublie toutes les vérifications
+     */
+    public void vider() {
+        entrees.clear();
+    }
+
+    /**
+     * @return L'empreinte HMAC, ou null si le calcul est impossible (le cache est alors ignoré)
+     */
+    private byte[] empreinte(String username, String password, String hash) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHME);
+            mac.init(cle);
+            for (String partie : new String[] {username, password, hash}) {
+                byte[] octets = partie.getBytes(StandardCharsets.UTF_8);
+                // Longueur en préfixe : les parties ne peuvent pas se confondre
+                mac.update((byte) (octets.length >>> 24));
+                mac.update((byte) (octets.length >>> 16));
+                mac.update((byte) (octets.length >>> 8));
+                mac.update((byte) octets.length);
+                mac.update(octets);
+            }
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            System.err.println("Erreur lors du calcul de l'empreinte de connexion: " + e.getMessage());
+            return null;
+        }
+    }
+}
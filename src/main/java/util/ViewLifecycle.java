@@ -0,0 +1,23 @@
+package util;
+
+/**
+ * Cycle de vie d'un contrôleur de vue affichée par FXMLUtils.changeScene
+ *
+ * Les vues mises en cache (Config.VUES_EN_CACHE) gardent leur contrôleur d'un
+ * affichage à l'autre : initialize() n'est appelée qu'une fois, et c'est onShow()
+ * qui rafraîchit les données à chaque affichage.
+ */
+public interface ViewLifecycle {
+
+    /**
+     * Appelée sur le thread JavaFX chaque fois que la vue devient la racine de la scène
+     */
+    default void onShow() {
+    }
+
+    /**
+     * Appelée sur le thread JavaFX quand la vue est remplacée par une autre
+     */
+    default void onHide() {
+    }
+}
@@ -0,0 +1,99 @@
+package util;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.application.Platform;
+import javafx.scene.Parent;
+
+/**
+ * Registre des vues FXML mises en cache
+ *
+ * Les vues de Config.VUES_EN_CACHE (écrans de la caisse, visités des dizaines de
+ * fois par panier) ne sont analysées qu'une fois : la racine et son contrôleur
+ * sont conservés et réutilisés à chaque navigation. Les autres vues sont
+ * rechargées à chaque fois, comme avant.
+ *
+ * Les méthodes s'appellent depuis le thread JavaFX, sauf prechargerEnArrierePlan().
+ */
+public final class ViewRegistry {
+
+    private static final Map<String, Parent> VUES = new HashMap<>();
+
+    private ViewRegistry() {
+    }
+
+    /**
+     * Indique si la vue est conservée entre deux affichages
+     */
+    public static boolean isMiseEnCache(String fxmlPath) {
+        return Config.VUES_EN_CACHE.contains(fxmlPath);
+    }
+
+    /**
+     * Retourne la racine de la vue : celle du cache, ou une nouvelle si la vue n'est pas mise en cache
+     * @param fxmlPath Le chemin vers le fichier FXML
+     * @return Le Parent chargé
+     * @throws IOException Si le fichier FXML ne peut pas être chargé
+     */
+    public static Parent getVue(String fxmlPath) throws IOException {
+        if (!isMiseEnCache(fxmlPath)) {
+            return FXMLUtils.loadFXML(fxmlPath);
+        }
+        Parent vue = VUES.get(fxmlPath);
+        if (vue == null) {
+            vue = FXMLUtils.loadFXML(fxmlPath);
+            VUES.put(fxmlPath, vue);
+        }
+        return vue;
+    }
+
+    /**
+     * Retourne le contrôleur de la vue (chargée si besoin), pour la préparer avant son affichage
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getControleur(String fxmlPath) throws IOException {
+        return (T) FXMLUtils.getControleur(getVue(fxmlPath));
+    }
+
+    /**
+     * Charge à l'avance toutes les vues mises en cache
+     * @return Le nombre de vues chargées
+     */
+    public static int precharger() {
+        int chargees = 0;
+        for (String fxmlPath : Config.VUES_EN_CACHE) {
+            try {
+                getVue(fxmlPath);
+                chargees++;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erreur lors du préchargement de " + fxmlPath + ": " + e.getMessage());
+            }
+        }
+        return chargees;
+    }
+
+    /**
+     * Charge les vues mises en cache depuis un thread d'arrière-plan (démarrage)
+     *
+     * L'analyse FXML et la création des contrôles se font hors du thread JavaFX,
+     * ce qui est permis tant que les nœuds ne sont pas affichés ; chaque vue est
+     * ensuite publiée dans le registre sur le thread JavaFX. Si une vue a été
+     * chargée entre-temps (navigation rapide), celle-ci est conservée.
+     * @return Le nombre de vues chargées
+     */
+    public static int prechargerEnArrierePlan() {
+        int chargees = 0;
+        for (String fxmlPath : Config.VUES_EN_CACHE) {
+            try {
+                Parent vue = FXMLUtils.loadFXML(fxmlPath);
+                Platform.runLater(() -> VUES.putIfAbsent(fxmlPath, vue));
+                chargees++;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erreur lors du préchargement de " + fxmlPath + ": " + e.getMessage());
+            }
+        }
+        return chargees;
+    }
+}